@@ -2,40 +2,138 @@ package metaheuristics.ga;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import problems.Evaluator;
 import solutions.Solution;
 
 /**
- * Abstract class for metaheuristic GA (Genetic Algorithms). It consider the
- * maximization of the chromosome fitness.
+ * Abstract class for metaheuristic GA (Genetic Algorithms) over binary
+ * chromosomes. It consider the maximization of the chromosome fitness.
+ * <p>
+ * Each chromosome is a bit array packed in a long[], 64 genes per word, so
+ * that the crossovers combine whole words through masks. A population keeps
+ * its chromosomes and their fitness in parallel arrays. Only two populations
+ * are ever allocated, which alternate as the current population and the
+ * offsprings, hence the generations allocate no chromosomes.
+ * <p>
+ * The operators only set the genes of the chromosomes they create or modify,
+ * which are then repaired and evaluated together (see {@link #evaluate}),
+ * possibly by several threads. Since all the random choices are made by the
+ * operators, in the calling thread, the search is the same for any number of
+ * threads. The offsprings and the mutants keep the chromosome they derive
+ * from, so that their fitness can be determined from the difference to it
+ * (see {@link #fitness(long[], long[], double)}). Chromosomes evaluated
+ * recently, which the selection keeps bringing back, are not evaluated again
+ * (see {@link FitnessCache}).
  *
- * @param <G> Generic type of the chromosome element (genotype).
  * @param <F> Generic type of the candidate to enter the solution (fenotype).
  * @author ccavellucci, fusberti
  */
-public abstract class AbstractGA<G extends Number, F> {
+public abstract class AbstractGA<F> {
 
-    public class Chromosome extends ArrayList<G> {
-        public Double fitness = null;
-
-        public Chromosome() {
-            super();
+    /**
+     * A population of {@link #popSize} chromosomes, the i-th one stored in
+     * {@code chromosomes[i]} and its fitness in {@code fitness[i]}.
+     */
+    public class Population {
+
+        /**
+         * the genes of each chromosome
+         */
+        public final long[][] chromosomes;
+
+        /**
+         * the fitness of each chromosome
+         */
+        public final double[] fitness;
+
+        /**
+         * whether each chromosome was created or modified since its fitness
+         * was last evaluated
+         */
+        public final boolean[] pending;
+
+        /**
+         * whether each pending chromosome derives from an evaluated one,
+         * stored in {@code references[i]} with its fitness in
+         * {@code referenceFitness[i]}
+         */
+        public final boolean[] derived;
+
+        /**
+         * the chromosome each pending chromosome derives from
+         */
+        public final long[][] references;
+
+        /**
+         * the fitness of the chromosome each pending chromosome derives from
+         */
+        public final double[] referenceFitness;
+
+        /**
+         * the hash of each pending chromosome, as looked up in the cache
+         */
+        public final long[] keys;
+
+        public Population() {
+            chromosomes = new long[popSize][words];
+            fitness = new double[popSize];
+            pending = new boolean[popSize];
+            derived = new boolean[popSize];
+            references = new long[popSize][words];
+            referenceFitness = new double[popSize];
+            keys = new long[popSize];
         }
 
-        public Chromosome(Chromosome other) {
-            super(other);
-            fitness = other.fitness;
+        /**
+         * Copies a chromosome, and its fitness, from a population.
+         *
+         * @param i    the position being overwritten in this population.
+         * @param from the population holding the chromosome.
+         * @param k    the position of the chromosome in that population.
+         */
+        public void copy(int i, Population from, int k) {
+            System.arraycopy(from.chromosomes[k], 0, chromosomes[i], 0, words);
+            fitness[i] = from.fitness[k];
+            pending[i] = from.pending[k];
+            derived[i] = from.derived[k];
+            if (derived[i]) {
+                System.arraycopy(from.references[k], 0, references[i], 0, words);
+                referenceFitness[i] = from.referenceFitness[k];
+            }
         }
 
-        @Override
-        public Chromosome clone() {
-            return new Chromosome(this);
+        /**
+         * Marks a chromosome as pending, deriving from an evaluated one.
+         *
+         * @param i                the position of the pending chromosome.
+         * @param reference        the chromosome it derives from.
+         * @param referenceFitness the fitness of that chromosome.
+         */
+        public void derive(int i, long[] reference, double referenceFitness) {
+            System.arraycopy(reference, 0, references[i], 0, words);
+            this.referenceFitness[i] = referenceFitness;
+            pending[i] = derived[i] = true;
         }
-    }
 
-    public class Population extends ArrayList<Chromosome> {
+        /**
+         * Marks a chromosome about to be modified in place as pending. If it
+         * was evaluated, it derives from its current genes.
+         *
+         * @param i the position of the chromosome.
+         */
+        public void modify(int i) {
+            if (!pending[i])
+                derive(i, chromosomes[i], fitness[i]);
+        }
     }
 
     /**
@@ -45,9 +143,45 @@ public abstract class AbstractGA<G extends Number, F> {
     public static boolean verbose = true;
 
     /**
-     * a random number generator
+     * a random number generator, one per GA, so that GAs solving concurrently
+     * (see {@link IslandGA}) neither share nor interleave their random choices
+     */
+    protected final Random rng = new Random(42);
+
+    /**
+     * the number of threads evaluating the fitness of the chromosomes, 1 for
+     * evaluating them in the calling thread
+     */
+    public static int threads = 1;
+
+    /**
+     * the workers evaluating the fitness of the chromosomes, while solving
+     * with more than one thread
+     */
+    private ExecutorService workers;
+
+    /**
+     * the capacity of the fitness cache, 0 for disabling it
      */
-    public static final Random rng = new Random(42);
+    public static int cacheCapacity = 1024;
+
+    /**
+     * the cache of the fitness of the chromosomes evaluated in the last run,
+     * or null if disabled
+     */
+    protected FitnessCache cache;
+
+    /**
+     * the random key of each locus, whose exclusive or over the set genes of
+     * a chromosome is its hash
+     */
+    private long[] zobrist;
+
+    /**
+     * the positions of the chromosomes missed in the cache while evaluating
+     * a population
+     */
+    private int[] missed;
 
     /**
      * the objective function being optimized
@@ -69,6 +203,11 @@ public abstract class AbstractGA<G extends Number, F> {
      */
     protected int chromosomeSize;
 
+    /**
+     * the number of words of each chromosome
+     */
+    protected int words;
+
     /**
      * the probability of performing a mutation
      */
@@ -84,10 +223,26 @@ public abstract class AbstractGA<G extends Number, F> {
      */
     protected Solution<F> bestSol;
 
+    /**
+     * the island model this GA takes part in, exchanging chromosomes with the
+     * other islands, or null if it solves on its own
+     */
+    IslandGA<F> islands;
+
+    /**
+     * the position of this GA among the islands
+     */
+    int island;
+
     /**
      * the best chromosome, according to its fitness evaluation
      */
-    protected Chromosome bestChromosome;
+    protected long[] bestChromosome;
+
+    /**
+     * the fitness of the best chromosome
+     */
+    protected double bestFitness;
 
     /**
      * Creates a new solution which is empty, i.e., does not contain any
@@ -105,34 +260,36 @@ public abstract class AbstractGA<G extends Number, F> {
      * @param chromosome The genotype being considered for decoding.
      * @return The corresponding fenotype (solution).
      */
-    protected abstract Solution<F> decode(Chromosome chromosome);
-
-    /**
-     * Generates a random chromosome according to some probability distribution
-     * (usually uniform).
-     *
-     * @return A random chromosome.
-     */
-    protected abstract Chromosome generateRandomChromosome();
+    protected abstract Solution<F> decode(long[] chromosome);
 
     /**
      * Determines the fitness for a given chromosome. The fitness should be a
      * function strongly correlated to the objective function under
-     * consideration.
+     * consideration. It may be called concurrently for distinct chromosomes
+     * (see {@link #threads}).
      *
      * @param chromosome The genotype being considered for fitness evaluation.
      * @return The fitness value for the input chromosome.
      */
-    protected abstract Double fitness(Chromosome chromosome);
+    protected abstract double fitness(long[] chromosome);
 
     /**
-     * Mutates a given locus of the chromosome. This method should be preferably
-     * called with an expected frequency determined by the {@link #mutationRate}.
+     * Determines the fitness for a chromosome derived from another one whose
+     * fitness is known, e.g., an offspring from one of its parents, or a
+     * mutant from the chromosome it was before the mutation. The derived
+     * chromosomes usually differ from their references in a few loci only,
+     * in which case their fitness may be computed from those differences.
+     * By default, the fitness is evaluated from scratch.
      *
-     * @param chromosome The genotype being mutated.
-     * @param locus      The position in the genotype being mutated.
+     * @param chromosome       The genotype being considered for fitness
+     *                         evaluation.
+     * @param reference        The genotype it derives from.
+     * @param referenceFitness The fitness of the reference.
+     * @return The fitness value for the input chromosome.
      */
-    protected abstract void mutateGene(Chromosome chromosome, Integer locus);
+    protected double fitness(long[] chromosome, long[] reference, double referenceFitness) {
+        return fitness(chromosome);
+    }
 
     /**
      * Creates an Evaluator based on the parameters in the input file.
@@ -154,6 +311,25 @@ public abstract class AbstractGA<G extends Number, F> {
         this.generations = generations;
         this.popSize = popSize;
         this.chromosomeSize = this.ObjFunction.getDomainSize();
+        this.words = (chromosomeSize + 63) >>> 6;
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * The constructor for the GA class which reuses an already created
+     * objective function, e.g., one shared by several solvers.
+     *
+     * @param objFunction  The objective function being optimized.
+     * @param generations  Number of generations to be executed.
+     * @param popSize      Population size.
+     * @param mutationRate The mutation rate.
+     */
+    public AbstractGA(Evaluator<F> objFunction, Integer generations, Integer popSize, Double mutationRate) {
+        this.ObjFunction = objFunction;
+        this.generations = generations;
+        this.popSize = popSize;
+        this.chromosomeSize = this.ObjFunction.getDomainSize();
+        this.words = (chromosomeSize + 63) >>> 6;
         this.mutationRate = mutationRate;
     }
 
@@ -161,6 +337,48 @@ public abstract class AbstractGA<G extends Number, F> {
         return generations;
     }
 
+    /**
+     * Tells the value of a gene.
+     *
+     * @param chromosome The genotype being read.
+     * @param locus      The position of the gene.
+     * @return true if the gene is set.
+     */
+    protected static boolean gene(long[] chromosome, int locus) {
+        return (chromosome[locus >>> 6] & (1L << locus)) != 0;
+    }
+
+    /**
+     * Gives the Zobrist hash of a chromosome, i.e., the exclusive or of the
+     * random keys of the loci whose genes are set. Flipping a gene flips the
+     * key of its locus in the hash.
+     *
+     * @param chromosome The genotype being hashed.
+     * @return the hash of the genotype.
+     */
+    protected long hash(long[] chromosome) {
+        long hash = 0;
+        for (int w = 0; w < words; w++)
+            for (long word = chromosome[w]; word != 0; word &= word - 1)
+                hash ^= zobrist[(w << 6) + Long.numberOfTrailingZeros(word)];
+        return hash;
+    }
+
+    /**
+     * Gives the Hamming distance between two chromosomes, i.e., the number of
+     * loci in which they differ.
+     *
+     * @param chromosome1 The first genotype.
+     * @param chromosome2 The second genotype.
+     * @return the number of loci with distinct genes.
+     */
+    protected static int distance(long[] chromosome1, long[] chromosome2) {
+        int distance = 0;
+        for (int w = 0; w < chromosome1.length; w++)
+            distance += Long.bitCount(chromosome1[w] ^ chromosome2[w]);
+        return distance;
+    }
+
     /**
      * The GA mainframe. It starts by initializing a population of chromosomes.
      * It then enters a generational loop, in which each generation goes the
@@ -170,25 +388,51 @@ public abstract class AbstractGA<G extends Number, F> {
      * @return The best feasible solution obtained throughout all iterations.
      */
     public Solution<F> solve() {
+        cache = cacheCapacity > 0 ? new FitnessCache(cacheCapacity, words) : null;
+        if (cache != null && zobrist == null)
+            zobrist = new SplittableRandom(chromosomeSize).longs(chromosomeSize).toArray();
+        missed = new int[popSize];
+        if (threads > 1)
+            workers = Executors.newFixedThreadPool(threads);
+        try {
+            return _solve();
+        } finally {
+            if (workers != null)
+                workers.shutdown();
+            workers = null;
+        }
+    }
+
+    private Solution<F> _solve() {
         Population population = initializePopulation(); // starts the initial population
-        bestChromosome = getBestChromosome(population);
+        Population offsprings = new Population();
+        int[] parents = new int[popSize];
+        int best = getBestChromosome(population);
+        bestChromosome = population.chromosomes[best].clone();
+        bestFitness = population.fitness[best];
         bestSol = decode(bestChromosome);
         System.out.println("(Gen. " + 0 + ") BestSol = " + bestSol);
 
         // Enter the main loop and repeats until a given number of generations:
         int interval = generations / 10;
         for (int g = 1; g <= generations; g++) {
-            Population parents = selectParents(population);
-            Population offsprings = crossover(parents);
-            Population mutants = mutate(offsprings);
-            population = selectPopulation(mutants);
-            var popBestChromosome = getBestChromosome(population);
+            selectParents(population, parents);
+            crossover(population, parents, offsprings);
+            mutate(offsprings);
+            selectPopulation(offsprings);
+            Population aux = population; // the offsprings become the population
+            population = offsprings;
+            offsprings = aux;
+            if (islands != null && g % islands.migrationInterval == 0)
+                islands.migrate(island, population);
+            int popBest = getBestChromosome(population);
 
             if (verbose && g % interval == 0)
-                System.out.println("(Gen. " + g + ") CurrSol = " + decode(popBestChromosome));
-            if (popBestChromosome.fitness > bestChromosome.fitness) {
-                bestSol = decode(popBestChromosome);
-                bestChromosome = popBestChromosome.clone();
+                System.out.println("(Gen. " + g + ") CurrSol = " + decode(population.chromosomes[popBest]));
+            if (population.fitness[popBest] > bestFitness) {
+                System.arraycopy(population.chromosomes[popBest], 0, bestChromosome, 0, words);
+                bestFitness = population.fitness[popBest];
+                bestSol = decode(bestChromosome);
                 if (verbose)
                     System.out.println("(Gen. " + g + ") BestSol = " + bestSol);
             }
@@ -197,6 +441,105 @@ public abstract class AbstractGA<G extends Number, F> {
         return bestSol;
     }
 
+    /**
+     * Fills a chromosome with uniformly random genes.
+     *
+     * @param chromosome The genotype being generated.
+     */
+    protected void generateRandomChromosome(long[] chromosome) {
+        for (int w = 0; w < words; w++)
+            chromosome[w] = rng.nextLong();
+        if ((chromosomeSize & 63) != 0) // clears the genes past the last locus
+            chromosome[words - 1] &= (1L << chromosomeSize) - 1;
+    }
+
+    /**
+     * Makes a chromosome viable, if needed, before its fitness is evaluated.
+     * Every chromosome generated or modified by the GA goes through this
+     * method, which does nothing by default. As {@link #fitness}, it may be
+     * called concurrently for distinct chromosomes.
+     *
+     * @param chromosome The genotype being repaired.
+     */
+    protected void repair(long[] chromosome) {
+    }
+
+    /**
+     * Repairs and evaluates the fitness of the pending chromosomes of a
+     * population. The ones found in the cache are taken from it and the
+     * others are stored in it afterwards, both in the calling thread and in
+     * order. With more than one {@link #threads}, the chromosomes missed are
+     * split among the workers, each one taking every t-th of them.
+     *
+     * @param population The population being evaluated.
+     */
+    protected void evaluate(Population population) {
+        int misses = 0;
+        if (cache != null)
+            for (int i = 0; i < popSize; i++)
+                if (population.pending[i]) {
+                    population.keys[i] = hash(population.chromosomes[i]);
+                    double fitness = cache.get(population.keys[i], population.chromosomes[i]);
+                    if (Double.isNaN(fitness))
+                        missed[misses++] = i;
+                    else {
+                        population.fitness[i] = fitness;
+                        population.pending[i] = population.derived[i] = false;
+                    }
+                }
+
+        evaluatePending(population);
+
+        for (int k = 0; k < misses; k++) {
+            int i = missed[k];
+            cache.put(population.keys[i], population.chromosomes[i], population.fitness[i]);
+        }
+    }
+
+    /**
+     * Repairs and evaluates the fitness of the pending chromosomes of a
+     * population, possibly in parallel.
+     */
+    private void evaluatePending(Population population) {
+        if (workers == null) {
+            evaluate(population, 0, 1);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int first = t;
+            tasks.add(() -> {
+                evaluate(population, first, threads);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating the population", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to evaluate the population", e.getCause());
+        }
+    }
+
+    /**
+     * Repairs and evaluates the pending chromosomes of a population from a
+     * position on, in steps of a given stride.
+     */
+    private void evaluate(Population population, int first, int stride) {
+        for (int i = first; i < popSize; i += stride)
+            if (population.pending[i]) {
+                long[] chromosome = population.chromosomes[i];
+                repair(chromosome);
+                population.fitness[i] = population.derived[i]
+                        ? fitness(chromosome, population.references[i], population.referenceFitness[i])
+                        : fitness(chromosome);
+                population.pending[i] = population.derived[i] = false;
+            }
+    }
+
     /**
      * Randomly generates an initial population to start the GA.
      *
@@ -204,11 +547,11 @@ public abstract class AbstractGA<G extends Number, F> {
      */
     protected Population initializePopulation() {
         Population population = new Population();
-        while (population.size() < popSize) {
-            var aux = generateRandomChromosome();
-            population.add(aux);
-            aux.fitness = fitness(aux);
+        for (int i = 0; i < popSize; i++) {
+            generateRandomChromosome(population.chromosomes[i]);
+            population.pending[i] = true;
         }
+        evaluate(population);
         return population;
     }
 
@@ -217,18 +560,14 @@ public abstract class AbstractGA<G extends Number, F> {
      * the fitness evaluation.
      *
      * @param population A population of chromosomes.
-     * @return The best chromosome among the population.
-     */
-    protected Chromosome getBestChromosome(Population population) {
-        double bestFitness = Double.NEGATIVE_INFINITY;
-        Chromosome bestChromosome = null;
-        for (Chromosome c : population) {
-            if (c.fitness > bestFitness) {
-                bestFitness = c.fitness;
-                bestChromosome = c;
-            }
-        }
-        return bestChromosome;
+     * @return The position of the best chromosome among the population.
+     */
+    protected int getBestChromosome(Population population) {
+        int best = 0;
+        for (int i = 1; i < popSize; i++)
+            if (population.fitness[i] > population.fitness[best])
+                best = i;
+        return best;
     }
 
     /**
@@ -236,18 +575,14 @@ public abstract class AbstractGA<G extends Number, F> {
      * the fitness evaluation.
      *
      * @param population A population of chromosomes.
-     * @return The worst chromosome among the population.
-     */
-    protected Chromosome getWorseChromosome(Population population) {
-        double worseFitness = Double.POSITIVE_INFINITY;
-        Chromosome worseChromosome = null;
-        for (Chromosome c : population) {
-            if (c.fitness < worseFitness) {
-                worseFitness = c.fitness;
-                worseChromosome = c;
-            }
-        }
-        return worseChromosome;
+     * @return The position of the worst chromosome among the population.
+     */
+    protected int getWorseChromosome(Population population) {
+        int worse = 0;
+        for (int i = 1; i < popSize; i++)
+            if (population.fitness[i] < population.fitness[worse])
+                worse = i;
+        return worse;
     }
 
     /**
@@ -257,26 +592,58 @@ public abstract class AbstractGA<G extends Number, F> {
      * the number of selected parents is equal to {@link #popSize}.
      *
      * @param population The current population.
-     * @return The selected parents for performing crossover.
+     * @param parents    Receives the positions in the population of the
+     *                   selected parents for performing crossover.
      */
-    protected Population selectParents(Population population) {
-        Population parents = new Population();
-        while (parents.size() < popSize) {
+    protected void selectParents(Population population, int[] parents) {
+        for (int i = 0; i < popSize; i++) {
             int index1 = rng.nextInt(popSize), index2 = rng.nextInt(popSize);
-            Chromosome parent1 = population.get(index1), parent2 = population.get(index2);
-            if (parent1.fitness > parent2.fitness)
-                parents.add(parent1);
-            else
-                parents.add(parent2);
+            parents[i] = population.fitness[index1] > population.fitness[index2] ? index1 : index2;
         }
-        return parents;
     }
 
     /**
      * The crossover step takes the parents generated by {@link #selectParents}
-     * and recombine their genes to generate new chromosomes (offsprings). The
-     * method being used is the 2-point crossover, which randomly selects two
-     * locus for being the points of exchange (P1 and P2). For example:
+     * and recombine their genes, pairwise, to generate new chromosomes
+     * (offsprings) through {@link #crossover(long[], long[], long[], long[])}.
+     * Identical parents are simply copied, as their offsprings would be the
+     * same as them.
+     *
+     * @param population The current population.
+     * @param parents    The positions of the selected parents in the
+     *                   population.
+     * @param offsprings Receives the resulting offsprings.
+     */
+    protected void crossover(Population population, int[] parents, Population offsprings) {
+        for (int i = 0; i < popSize; i = i + 2) {
+            if (i + 1 == popSize || parents[i] == parents[i + 1]) { // Save time as the offspring will be the same as the parents:
+                offsprings.copy(i, population, parents[i]);
+                if (i + 1 < popSize)
+                    offsprings.copy(i + 1, population, parents[i + 1]);
+                continue;
+            }
+
+            long[] parent1 = population.chromosomes[parents[i]], parent2 = population.chromosomes[parents[i + 1]];
+            double fitness1 = population.fitness[parents[i]], fitness2 = population.fitness[parents[i + 1]];
+            long[] offspring1 = offsprings.chromosomes[i], offspring2 = offsprings.chromosomes[i + 1];
+            crossover(parent1, parent2, offspring1, offspring2);
+            // Each offspring derives from the parent it is closest to:
+            if (distance(offspring1, parent1) <= distance(offspring1, parent2))
+                offsprings.derive(i, parent1, fitness1);
+            else
+                offsprings.derive(i, parent2, fitness2);
+            if (distance(offspring2, parent2) <= distance(offspring2, parent1))
+                offsprings.derive(i + 1, parent2, fitness2);
+            else
+                offsprings.derive(i + 1, parent1, fitness1);
+        }
+        evaluate(offsprings);
+    }
+
+    /**
+     * Recombines two parents through the 2-point crossover, which randomly
+     * selects two locus for being the points of exchange (P1 and P2). For
+     * example:
      * <p>
      * P1            P2
      * Parent 1: X1 ... Xi | Xi+1 ... Xj | Xj+1 ... Xn
@@ -284,43 +651,26 @@ public abstract class AbstractGA<G extends Number, F> {
      * <p>
      * Offspring 1: X1 ... Xi | Yi+1 ... Yj | Xj+1 ... Xn
      * Offspring 2: Y1 ... Yi | Xi+1 ... Xj | Yj+1 ... Yn
+     * <p>
+     * Each word of the offsprings is combined at once, through the mask of the
+     * loci of the word between the crosspoints.
      *
-     * @param parents The selected parents for crossover.
-     * @return The resulting offsprings.
+     * @param parent1    The first parent.
+     * @param parent2    The second parent.
+     * @param offspring1 Receives the first offspring.
+     * @param offspring2 Receives the second offspring.
      */
-    protected Population crossover(Population parents) {
-        Population offsprings = new Population();
-
-        for (int i = 0; i < popSize; i = i + 2) {
-            Chromosome parent1 = parents.get(i), parent2 = parents.get(i + 1);
-
-            if (parent1 == parent2) { // Save time as the offspring will be the same as the parents:
-                offsprings.add(parent1);
-                offsprings.add(parent2);
-                continue;
-            }
-
-            int crosspoint1 = rng.nextInt(chromosomeSize + 1);
-            int crosspoint2 = crosspoint1 + rng.nextInt((chromosomeSize + 1) - crosspoint1);
-
-            Chromosome offspring1 = new Chromosome(), offspring2 = new Chromosome();
-
-            for (int j = 0; j < chromosomeSize; j++)
-                if (j >= crosspoint1 && j < crosspoint2) {
-                    offspring1.add(parent2.get(j));
-                    offspring2.add(parent1.get(j));
-                } else {
-                    offspring1.add(parent1.get(j));
-                    offspring2.add(parent2.get(j));
-                }
-
-            offspring1.fitness = fitness(offspring1);
-            offspring2.fitness = fitness(offspring2);
-            offsprings.add(offspring1);
-            offsprings.add(offspring2);
+    protected void crossover(long[] parent1, long[] parent2, long[] offspring1, long[] offspring2) {
+        int crosspoint1 = rng.nextInt(chromosomeSize + 1);
+        int crosspoint2 = crosspoint1 + rng.nextInt((chromosomeSize + 1) - crosspoint1);
+
+        for (int w = 0; w < words; w++) {
+            int from = Math.max(crosspoint1 - (w << 6), 0), to = Math.min(crosspoint2 - (w << 6), 64);
+            long mask = from >= to ? 0L : (to == 64 ? -1L : (1L << to) - 1) & (-1L << from);
+            long swap = (parent1[w] ^ parent2[w]) & mask;
+            offspring1[w] = parent1[w] ^ swap;
+            offspring2[w] = parent2[w] ^ swap;
         }
-
-        return offsprings;
     }
 
     /**
@@ -330,18 +680,46 @@ public abstract class AbstractGA<G extends Number, F> {
      *
      * @param offsprings The offsprings chromosomes generated by the
      *                   {@link #crossover}.
-     * @return The mutated offsprings.
      */
-    protected Population mutate(Population offsprings) {
-        for (Chromosome c : offsprings) {
+    protected void mutate(Population offsprings) {
+        for (int i = 0; i < popSize; i++) {
             if (rng.nextDouble() < mutationRate) {
-                for (int locus = 0; locus < chromosomeSize; locus++)
-                    if (rng.nextDouble() < mutationRate / 10)
-                        mutateGene(c, locus);
-                c.fitness = fitness(c);
+                offsprings.modify(i);
+                mutateGenes(offsprings.chromosomes[i], mutationRate / 10);
             }
         }
-        return offsprings;
+        evaluate(offsprings);
+    }
+
+    /**
+     * Mutates each locus of a chromosome with a given probability. Instead of
+     * drawing a number for every locus, the gaps between the mutated loci are
+     * drawn from their geometric distribution.
+     *
+     * @param chromosome The genotype being mutated.
+     * @param rate       The probability of mutating each locus.
+     */
+    protected void mutateGenes(long[] chromosome, double rate) {
+        if (rate <= 0)
+            return;
+        final double logComplement = Math.log1p(-Math.min(rate, 1));
+        double locus = -1;
+        while (true) {
+            locus += 1 + (rate >= 1 ? 0 : Math.floor(Math.log1p(-rng.nextDouble()) / logComplement));
+            if (locus >= chromosomeSize)
+                break;
+            mutateGene(chromosome, (int) locus);
+        }
+    }
+
+    /**
+     * Mutates a given locus of the chromosome, flipping its gene.
+     *
+     * @param chromosome The genotype being mutated.
+     * @param locus      The position in the genotype being mutated.
+     */
+    protected void mutateGene(long[] chromosome, int locus) {
+        chromosome[locus >>> 6] ^= 1L << locus;
     }
 
     /**
@@ -351,14 +729,12 @@ public abstract class AbstractGA<G extends Number, F> {
      * it with the best chromosome found so far.
      *
      * @param offsprings The offsprings generated by {@link #crossover}.
-     * @return The updated population for the next generation.
      */
-    protected Population selectPopulation(Population offsprings) {
-        Chromosome worse = getWorseChromosome(offsprings);
-        if (worse.fitness < bestChromosome.fitness) {
-            offsprings.remove(worse);
-            offsprings.add(bestChromosome);
+    protected void selectPopulation(Population offsprings) {
+        int worse = getWorseChromosome(offsprings);
+        if (offsprings.fitness[worse] < bestFitness) {
+            System.arraycopy(bestChromosome, 0, offsprings.chromosomes[worse], 0, words);
+            offsprings.fitness[worse] = bestFitness;
         }
-        return offsprings;
     }
 }
@@ -0,0 +1,163 @@
+package metaheuristics.ga;
+
+/**
+ * Bounded cache of the fitness of the chromosomes evaluated by a GA, keyed by
+ * a 64-bit hash of their genes (see {@link AbstractGA#hash}). Besides the
+ * fitness, each entry keeps the genes of the chromosome once repaired (see
+ * {@link AbstractGA#repair}), so that a hit replaces both the repair and the
+ * evaluation. The keys are trusted not to collide, which for hashes of 64
+ * random bits is by far less likely than any other failure.
+ * <p>
+ * When full, the entries are evicted by the CLOCK policy, an approximation of
+ * LRU: a hand sweeps the entries, sparing (once) the ones hit since it last
+ * passed by. The entries are found through an open addressing table, so that
+ * no operation allocates. It is not thread-safe.
+ */
+public class FitnessCache {
+
+    private final int capacity, words, mask;
+
+    private final long[] keys;
+
+    private final double[] values;
+
+    private final long[][] genes;
+
+    private final boolean[] referenced;
+
+    /**
+     * The table of the entries by key, holding the position of each entry
+     * plus one, or 0 for an empty position, with linear probing.
+     */
+    private final int[] table;
+
+    private int size = 0, hand = 0;
+
+    private long hits = 0, misses = 0;
+
+    /**
+     * Constructor for the FitnessCache class.
+     *
+     * @param capacity the maximum number of entries.
+     * @param words    the number of words of each chromosome.
+     */
+    public FitnessCache(int capacity, int words) {
+        this.capacity = capacity;
+        this.words = words;
+        this.keys = new long[capacity];
+        this.values = new double[capacity];
+        this.genes = new long[capacity][words];
+        this.referenced = new boolean[capacity];
+        this.table = new int[Integer.highestOneBit(Math.max(capacity, 1)) << 2]; // at most half full
+        this.mask = table.length - 1;
+    }
+
+    private int home(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Gives the position of the table holding a key, or else the empty one
+     * where it would be placed.
+     */
+    private int find(long key) {
+        int p = home(key);
+        while (table[p] != 0 && keys[table[p] - 1] != key)
+            p = (p + 1) & mask;
+        return p;
+    }
+
+    /**
+     * Looks a chromosome up.
+     *
+     * @param key        the hash of the chromosome.
+     * @param chromosome the chromosome, which receives the genes it had once
+     *                   repaired on a hit.
+     * @return the fitness of the chromosome, or NaN on a miss.
+     */
+    public double get(long key, long[] chromosome) {
+        int entry = table[find(key)] - 1;
+        if (entry < 0) {
+            misses++;
+            return Double.NaN;
+        }
+        hits++;
+        referenced[entry] = true;
+        System.arraycopy(genes[entry], 0, chromosome, 0, words);
+        return values[entry];
+    }
+
+    /**
+     * Stores the fitness of a chromosome, evicting an entry if full.
+     *
+     * @param key        the hash of the chromosome, before being repaired.
+     * @param chromosome the chromosome, once repaired.
+     * @param fitness    the fitness of the chromosome.
+     */
+    public void put(long key, long[] chromosome, double fitness) {
+        int p = find(key), entry = table[p] - 1;
+        if (entry < 0) {
+            if (size < capacity)
+                entry = size++;
+            else {
+                entry = evict();
+                p = find(key);
+            }
+            keys[entry] = key;
+            table[p] = entry + 1;
+        }
+        values[entry] = fitness;
+        referenced[entry] = true;
+        System.arraycopy(chromosome, 0, genes[entry], 0, words);
+    }
+
+    /**
+     * Advances the hand of the clock up to an entry not referenced since it
+     * last passed by, and removes that entry from the table.
+     *
+     * @return the position of the entry evicted.
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int entry = hand;
+        hand = (hand + 1) % capacity;
+
+        // Removes the key, shifting back the following ones of its cluster
+        // which may occupy the freed position.
+        int p = find(keys[entry]);
+        table[p] = 0;
+        for (int q = (p + 1) & mask; table[q] != 0; q = (q + 1) & mask) {
+            int h = home(keys[table[q] - 1]);
+            if (((q - h) & mask) >= ((q - p) & mask)) {
+                table[p] = table[q];
+                table[q] = 0;
+                p = q;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return the number of lookups which found their chromosome.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which did not find their chromosome.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,211 @@
+package metaheuristics.ga;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import solutions.Solution;
+
+/**
+ * Island model of GAs: several GAs (the islands), possibly of distinct kinds,
+ * evolve their own populations of the same problem, each one in its own
+ * thread, and every {@link #migrationInterval} generations send copies of
+ * their best chromosomes to other islands, whose worst chromosomes they
+ * replace if fitter.
+ * <p>
+ * The islands do not wait for each other: the migrants are left in the
+ * lock-free inbox of the island they are sent to, which takes them at its
+ * next migration. Hence, unlike a GA solving on its own, the island model
+ * is not reproducible, as what each island receives depends on the relative
+ * speed of the islands.
+ * <p>
+ * The islands already take one thread each, so they are best run with a
+ * single {@link AbstractGA#threads} for their evaluation.
+ *
+ * @param <F> Generic type of the candidate to enter the solution (fenotype).
+ */
+public class IslandGA<F> {
+
+    /**
+     * The islands an island sends its migrants to.
+     */
+    public enum Topology {
+        /**
+         * each island sends to the next one, the last one to the first
+         */
+        RING,
+        /**
+         * each island sends to another one drawn at each migration
+         */
+        RANDOM
+    }
+
+    /**
+     * A copy of a chromosome migrating to another island, along with its
+     * fitness, which holds there, as the islands solve the same problem.
+     */
+    private static class Migrant {
+
+        final long[] chromosome;
+
+        final double fitness;
+
+        Migrant(long[] chromosome, double fitness) {
+            this.chromosome = chromosome;
+            this.fitness = fitness;
+        }
+    }
+
+    /**
+     * the islands, which must share the same chromosome size and fitness
+     */
+    protected final List<AbstractGA<F>> islands;
+
+    /**
+     * the migrants sent to each island and not yet received
+     */
+    private final List<ConcurrentLinkedQueue<Migrant>> inboxes;
+
+    /**
+     * the islands each island sends its migrants to
+     */
+    public final Topology topology;
+
+    /**
+     * the number of generations between migrations
+     */
+    public final int migrationInterval;
+
+    /**
+     * the number of chromosomes sent by an island at each migration
+     */
+    public final int migrants;
+
+    /**
+     * the island holding the best solution, after solving
+     */
+    protected AbstractGA<F> bestIsland;
+
+    /**
+     * Constructor for the IslandGA class. The random generator of the k-th
+     * island is seeded with 42 + k, the first one solving as it would on its
+     * own.
+     *
+     * @param islands           The GAs evolving the islands.
+     * @param topology          The islands each island sends its migrants to.
+     * @param migrationInterval The number of generations between migrations.
+     * @param migrants          The number of chromosomes sent by an island at
+     *                          each migration.
+     */
+    public IslandGA(List<? extends AbstractGA<F>> islands, Topology topology, int migrationInterval, int migrants) {
+        if (islands.isEmpty())
+            throw new IllegalArgumentException("No islands to solve");
+        if (migrationInterval < 1 || migrants < 1)
+            throw new IllegalArgumentException("Invalid migration of " + migrants + " every " + migrationInterval + " generations");
+        this.islands = new ArrayList<>(islands);
+        this.inboxes = new ArrayList<>(islands.size());
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        for (int k = 0; k < islands.size(); k++) {
+            AbstractGA<F> island = islands.get(k);
+            if (island.chromosomeSize != islands.get(0).chromosomeSize)
+                throw new IllegalArgumentException("The islands solve problems of distinct sizes");
+            if (migrants > island.popSize)
+                throw new IllegalArgumentException("Too many migrants for a population of " + island.popSize);
+            island.islands = this;
+            island.island = k;
+            island.rng.setSeed(42 + k);
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Solves all the islands concurrently, each one in its own thread.
+     *
+     * @return The best solution among the ones of the islands.
+     */
+    public Solution<F> solve() {
+        ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+        try {
+            List<Callable<Solution<F>>> tasks = new ArrayList<>(islands.size());
+            for (AbstractGA<F> island : islands)
+                tasks.add(island::solve);
+            for (Future<Solution<F>> future : executor.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving the islands", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to solve an island", e.getCause());
+        } finally {
+            executor.shutdown();
+            for (ConcurrentLinkedQueue<Migrant> inbox : inboxes)
+                inbox.clear();
+        }
+
+        bestIsland = islands.get(0);
+        for (AbstractGA<F> island : islands)
+            if (island.bestFitness > bestIsland.bestFitness)
+                bestIsland = island;
+        return bestIsland.bestSol;
+    }
+
+    /**
+     * @return The island holding the best solution, after solving.
+     */
+    public AbstractGA<F> getBestIsland() {
+        return bestIsland;
+    }
+
+    /**
+     * Sends the best {@link #migrants} chromosomes of an island to the one
+     * given by the {@link #topology}, and replaces its worst chromosomes by
+     * the fitter of the migrants received meanwhile. Called by the island
+     * itself, in its thread.
+     *
+     * @param k          The position of the island.
+     * @param population The current population of the island.
+     */
+    void migrate(int k, AbstractGA<F>.Population population) {
+        AbstractGA<F> island = islands.get(k);
+        int n = islands.size();
+        if (n > 1) {
+            int to = topology == Topology.RING ? (k + 1) % n : (k + 1 + island.rng.nextInt(n - 1)) % n;
+            // Takes the best chromosomes by partial selection, as there are few:
+            double bound = Double.POSITIVE_INFINITY;
+            int boundIndex = -1;
+            for (int m = 0; m < migrants; m++) {
+                int best = -1;
+                for (int i = 0; i < island.popSize; i++)
+                    if (ranksBelow(population.fitness[i], i, bound, boundIndex)
+                            && (best < 0 || ranksBelow(population.fitness[best], best, population.fitness[i], i)))
+                        best = i;
+                inboxes.get(to).offer(new Migrant(population.chromosomes[best].clone(), population.fitness[best]));
+                bound = population.fitness[best];
+                boundIndex = best;
+            }
+        }
+
+        for (Migrant migrant; (migrant = inboxes.get(k).poll()) != null; ) {
+            int worse = island.getWorseChromosome(population);
+            if (migrant.fitness > population.fitness[worse]) {
+                System.arraycopy(migrant.chromosome, 0, population.chromosomes[worse], 0, island.words);
+                population.fitness[worse] = migrant.fitness;
+            }
+        }
+    }
+
+    /**
+     * Tells whether a chromosome ranks below another, i.e., comes after it in
+     * decreasing order of fitness, the ties being broken by their positions.
+     */
+    private static boolean ranksBelow(double fitness1, int index1, double fitness2, int index2) {
+        return fitness1 < fitness2 || fitness1 == fitness2 && index1 > index2;
+    }
+}
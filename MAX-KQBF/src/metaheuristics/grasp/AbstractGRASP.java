@@ -5,6 +5,7 @@ package metaheuristics.grasp;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import problems.Evaluator;
@@ -28,9 +29,39 @@ public abstract class AbstractGRASP<E> {
     public static boolean verbose = true;
 
     /**
-     * a random number generator
+     * the number of iterations between full re-evaluations of the current
+     * solution, which check the cost carried forward by the moves for
+     * numerical drift (a non-positive value disables the check)
      */
-    static Random rng = new Random(42);
+    public static int verificationInterval = 0;
+
+    /**
+     * the capacity of the pool of elite solutions which the local optima are
+     * relinked with (see {@link #pathRelinking}), 0 for disabling the path
+     * relinking
+     */
+    public static int elitePoolSize = 0;
+
+    /**
+     * the minimum distance among the elite solutions (see {@link ElitePool})
+     */
+    public static int eliteMinDistance = 4;
+
+    /**
+     * the number of constructions, and of local optima, remembered so that
+     * the repeated ones are not searched again (see {@link SolutionMemory}),
+     * 0 for disabling the memory. As the local search may be randomized, a
+     * repeated construction could still lead to another local optimum, which
+     * skipping it gives up for the time saved.
+     */
+    public static int memoryCapacity = 0;
+
+    /**
+     * a random number generator, one per solver, so that solvers running
+     * concurrently (see {@link ParallelGRASP}) neither share nor interleave
+     * their random choices
+     */
+    protected final Random rng = new Random(42);
 
     /**
      * the objective function being optimized
@@ -62,6 +93,36 @@ public abstract class AbstractGRASP<E> {
      */
     protected Integer iterations;
 
+    /**
+     * the parallel GRASP this solver is a worker of, sharing the incumbent
+     * with the other workers, or null if it solves on its own
+     */
+    ParallelGRASP<E> parallel;
+
+    /**
+     * the pool of elite solutions of the last run, or null if the path
+     * relinking is disabled
+     */
+    protected ElitePool<E> elite;
+
+    /**
+     * the memories of the constructions and of the local optima of the last
+     * run, or null if disabled
+     */
+    protected SolutionMemory constructions, optima;
+
+    /**
+     * the hash of the solution under construction (see {@link #key}), kept by
+     * the constructive heuristics as they insert its elements
+     */
+    protected long constructionHash;
+
+    /**
+     * the number of local searches run and skipped in the last run, and the
+     * time taken by the ones run, in nanoseconds
+     */
+    protected long searches, skippedSearches, searchTime;
+
     /**
      * the Candidate List of elements to enter the solution.
      */
@@ -120,6 +181,50 @@ public abstract class AbstractGRASP<E> {
      */
     public abstract Solution<E> localSearch();
 
+    /**
+     * Starts a construction from the empty solution {@link #sol}. The
+     * constructive heuristics only evaluate and insert candidates through
+     * this and the following methods, which by default go through the
+     * objective function, so that a solver keeping the insertion costs of
+     * all candidates up to date can serve them without evaluating the
+     * solution at each step.
+     */
+    protected void startConstruction() {
+    }
+
+    /**
+     * Determines the cost variations from inserting each candidate into the
+     * solution under construction.
+     *
+     * @param candidates The candidates, e.g., the {@link #CL}.
+     * @param deltas     Receives the cost variation of each candidate at its
+     *                   index.
+     */
+    protected void evaluateInsertionCosts(List<E> candidates, double[] deltas) {
+        ObjFunction.evaluateInsertionCosts(candidates, sol, deltas);
+    }
+
+    /**
+     * Determines the cost variation from inserting a candidate into the
+     * solution under construction.
+     *
+     * @param candidate The candidate.
+     * @return The cost variation resulting from the insertion.
+     */
+    protected double evaluateInsertionCost(E candidate) {
+        return ObjFunction.evaluateInsertionCost(candidate, sol);
+    }
+
+    /**
+     * Inserts a candidate into the solution under construction.
+     *
+     * @param candidate The candidate.
+     * @param deltaCost The cost variation resulting from the insertion.
+     */
+    protected void insertCandidate(E candidate, double deltaCost) {
+        ObjFunction.applyInsertion(candidate, deltaCost, sol);
+    }
+
     /**
      * Creates an Evaluator based on the parameters in the input file.
      *
@@ -139,15 +244,35 @@ public abstract class AbstractGRASP<E> {
                          ConstructiveHeuristic.ConstructiveHeuristicType hType) throws IOException {
         this.ObjFunction = initEvaluator(filename);
         this.iterations = iterations;
+        this.Heuristic = makeHeuristic(param, hType);
+    }
 
+    /**
+     * Constructor for the AbstractGRASP class which reuses an already created
+     * objective function, e.g., one shared by several solvers.
+     *
+     * @param objFunction The objective function being optimized.
+     * @param param       A double hyperparameter used by the constructive heuristics.
+     * @param iterations  The number of iterations which the GRASP will be executed.
+     * @param hType       The constructive heuristic type to be used in generating new solutions.
+     */
+    public AbstractGRASP(Evaluator<E> objFunction, Double param, Integer iterations,
+                         ConstructiveHeuristic.ConstructiveHeuristicType hType) {
+        this.ObjFunction = objFunction;
+        this.iterations = iterations;
+        this.Heuristic = makeHeuristic(param, hType);
+    }
+
+    private ConstructiveHeuristic<E> makeHeuristic(Double param,
+                                                   ConstructiveHeuristic.ConstructiveHeuristicType hType) {
         if (hType == ConstructiveHeuristic.ConstructiveHeuristicType.Basic)
-            this.Heuristic = new BasicHeuristic<>(param, this);
+            return new BasicHeuristic<>(param, this);
         else if (hType == ConstructiveHeuristic.ConstructiveHeuristicType.SampledGreedy)
-            this.Heuristic = new SampledGreedyHeuristic<>(param, this);
+            return new SampledGreedyHeuristic<>(param, this);
         else if (hType == ConstructiveHeuristic.ConstructiveHeuristicType.Reactive)
-            this.Heuristic = new ReactiveHeuristic<>(param, this);
+            return new ReactiveHeuristic<>(param, this);
         else
-            this.Heuristic = null; // will never occur
+            return null; // will never occur
     }
 
     /**
@@ -160,26 +285,143 @@ public abstract class AbstractGRASP<E> {
     public Solution<E> solve() {
         long startTime = System.currentTimeMillis();
         bestSol = createEmptySol();
-        int interval = iterations / 10;
+        elite = elitePoolSize > 0 ? new ElitePool<>(elitePoolSize, eliteMinDistance) : null;
+        constructions = memoryCapacity > 0 ? new SolutionMemory(memoryCapacity) : null;
+        optima = memoryCapacity > 0 ? new SolutionMemory(memoryCapacity) : null;
+        searches = skippedSearches = searchTime = 0;
+        int interval = Math.max(1, iterations / 10);
         for (int i = 0; i < iterations; i++) {
             double totalTime = (System.currentTimeMillis() - startTime) / 1000.0;
             // if (verbose && totalTime % 60 == 0)
                 // System.out.println("CurrTime = " + totalTime + " s");
             if (totalTime > MAXIMUM_RUNNING_TIME_SECONDS) break;
             Heuristic.newSolution();
+            if (constructions != null && constructions.add(constructionHash)) {
+                skippedSearches++; // already searched from, if maybe to another optimum
+                continue;
+            }
+            long searchStart = System.nanoTime();
             localSearch();
+            searchTime += System.nanoTime() - searchStart;
+            searches++;
+            if (elite != null && (optima == null || !optima.add(hash(sol))))
+                relink();
+            if (verificationInterval > 0 && (i + 1) % verificationInterval == 0)
+                verifyCost(i);
             if (verbose && i % interval == 0)
                 System.out.println("(Iter. " + i + ") CurrSol = " + sol);
             if (bestSol.cost > sol.cost) {
                 bestSol = sol.clone();
-                if (verbose)
+                boolean incumbent = parallel == null || parallel.publish(bestSol);
+                if (verbose && incumbent)
                     System.out.println("(Iter. " + i + ") BestSol = " + bestSol);
             }
         }
+        if (verbose && skippedSearches > 0)
+            System.out.println("Repeated constructions = " + skippedSearches + ", local search time saved = "
+                    + savedSearchTime() + " s");
 
         return bestSol;
     }
 
+    /**
+     * Estimates the time the local searches skipped in the last run, for
+     * repeating a construction, would have taken, by the average time of the
+     * ones run.
+     *
+     * @return The time saved, in seconds.
+     */
+    public double savedSearchTime() {
+        return searches == 0 ? 0.0 : skippedSearches * (searchTime / (double) searches) / 1e9;
+    }
+
+    /**
+     * @return The number of local searches skipped in the last run, for
+     * repeating a construction.
+     */
+    public long getSkippedSearches() {
+        return skippedSearches;
+    }
+
+    /**
+     * Gives the random key of an element, whose exclusive or over the
+     * elements of a solution is its hash, regardless of their order. The key
+     * mixes the hash code of the element (by the SplitMix64 finalizer).
+     *
+     * @param elem The element.
+     * @return The key of the element.
+     */
+    public static long key(Object elem) {
+        long z = elem.hashCode() + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Determines the hash of a solution, the exclusive or of the keys of its
+     * elements (see {@link #key}).
+     *
+     * @param sol The solution.
+     * @return The hash of the solution.
+     */
+    public static <E> long hash(Solution<E> sol) {
+        long hash = 0;
+        for (E elem : sol)
+            hash ^= key(elem);
+        return hash;
+    }
+
+    /**
+     * Relinks the local optimum {@link #sol} with an elite solution drawn
+     * from the pool, and takes the best solution on the path, once locally
+     * optimized, as the current one if better. The local optimum and the
+     * solution found are then offered to the pool. If the path has no
+     * solution strictly between both, the local optimum is kept as it is.
+     */
+    protected void relink() {
+        Solution<E> guide = elite.select(rng);
+        if (guide != null) {
+            Solution<E> optimum = sol.clone();
+            if (pathRelinking(guide)) {
+                localSearch();
+                elite.add(optimum);
+                if (optimum.cost < sol.cost)
+                    sol = optimum;
+            }
+        }
+        elite.add(sol);
+    }
+
+    /**
+     * Walks from the current solution {@link #sol} towards a guiding one,
+     * applying at each step the best of the moves of the symmetric difference
+     * left, and leaves in {@link #sol} the best solution found strictly
+     * between both, if any. By default, the current solution is kept.
+     *
+     * @param guide The guiding solution.
+     * @return true if {@link #sol} was moved to a solution on the path, false
+     * if it was kept.
+     */
+    protected boolean pathRelinking(Solution<E> guide) {
+        return false;
+    }
+
+    /**
+     * Re-evaluates the current solution from scratch, replacing the cost
+     * carried forward by the moves, and reports any drift found.
+     *
+     * @param iteration the current iteration, used when reporting.
+     */
+    protected void verifyCost(int iteration) {
+        double carriedCost = sol.cost;
+        ObjFunction.evaluate(sol);
+        double tolerance = ObjFunction.isExact() ? 0.0 : 1e-6 * Math.max(1.0, Math.abs(sol.cost));
+        if (verbose && Math.abs(carriedCost - sol.cost) > tolerance)
+            System.out.println("(Iter. " + iteration + ") Cost drift: carried = " + carriedCost +
+                    ", evaluated = " + sol.cost);
+    }
+
     /**
      * A standard stopping criteria for the constructive heuristic is to repeat
      * until the current solution improves by inserting a new candidate
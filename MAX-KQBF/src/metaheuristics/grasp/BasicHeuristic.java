@@ -1,7 +1,5 @@
 package metaheuristics.grasp;
 
-import java.util.ArrayList;
-
 public class BasicHeuristic<E> extends ConstructiveHeuristic<E> {
 
     /**
@@ -24,21 +22,24 @@ public class BasicHeuristic<E> extends ConstructiveHeuristic<E> {
         SOLVER.RCL = SOLVER.makeRCL();
         SOLVER.sol = SOLVER.createEmptySol();
         SOLVER.cost = Double.POSITIVE_INFINITY;
-        ArrayList<Double> deltas = new ArrayList<>();
+        SOLVER.constructionHash = 0;
+        SOLVER.startConstruction();
+        double[] deltas = new double[SOLVER.CL.size()];
+        int[] positions = new int[SOLVER.CL.size()]; // the positions in the CL of the RCL
 
         /* Main loop, which repeats until the stopping criteria is reached. */
         while (!SOLVER.constructiveStopCriteria()) {
             double maxCost = Double.NEGATIVE_INFINITY, minCost = Double.POSITIVE_INFINITY;
-            SOLVER.cost = SOLVER.ObjFunction.evaluate(SOLVER.sol);
+            SOLVER.cost = SOLVER.sol.cost;
             SOLVER.updateCL();
 
             /*
              * Explore all candidate elements to enter the solution, saving the
              * highest and lowest cost variation achieved by the candidates.
              */
-            for (E e : SOLVER.CL) {
-                Double deltaCost = SOLVER.ObjFunction.evaluateInsertionCost(e, SOLVER.sol);
-                deltas.add(deltaCost);
+            SOLVER.evaluateInsertionCosts(SOLVER.CL, deltas);
+            for (int i = 0; i < SOLVER.CL.size(); i++) {
+                double deltaCost = deltas[i];
                 if (deltaCost < minCost)
                     minCost = deltaCost;
                 if (deltaCost > maxCost)
@@ -50,18 +51,18 @@ public class BasicHeuristic<E> extends ConstructiveHeuristic<E> {
              * performance using parameter alpha as threshold.
              */
             for (int i = 0; i < SOLVER.CL.size(); i++) {
-                Double deltaCost = deltas.get(i);
-                if (deltaCost <= minCost + alpha * (maxCost - minCost))
+                double deltaCost = deltas[i];
+                if (deltaCost <= minCost + alpha * (maxCost - minCost)) {
+                    positions[SOLVER.RCL.size()] = i;
                     SOLVER.RCL.add(SOLVER.CL.get(i));
+                }
             }
 
             /* Choose a candidate randomly from the RCL */
             if (SOLVER.RCL.size() == 0) break;
-            int rndIndex = AbstractGRASP.rng.nextInt(SOLVER.RCL.size());
-            SOLVER.sol.add(SOLVER.CL.remove(rndIndex));
-            SOLVER.ObjFunction.evaluate(SOLVER.sol);
+            int rndIndex = positions[SOLVER.rng.nextInt(SOLVER.RCL.size())];
+            insert(removeCandidate(rndIndex), deltas[rndIndex]);
             SOLVER.RCL.clear();
-            deltas.clear();
         }
     }
 }
@@ -16,4 +16,28 @@ public abstract class ConstructiveHeuristic<E> {
     }
 
     public abstract void newSolution();
+
+    /**
+     * Inserts a candidate into the solution under construction, updating its
+     * hash (see {@link AbstractGRASP#constructionHash}).
+     *
+     * @param candidate The candidate.
+     * @param deltaCost The cost variation resulting from the insertion.
+     */
+    protected void insert(E candidate, double deltaCost) {
+        SOLVER.insertCandidate(candidate, deltaCost);
+        SOLVER.constructionHash ^= AbstractGRASP.key(candidate);
+    }
+
+    /**
+     * Removes the candidate at a position of the CL in O(1), moving the last
+     * candidate to that position.
+     *
+     * @param index The position of the candidate.
+     * @return The candidate removed.
+     */
+    protected E removeCandidate(int index) {
+        E last = SOLVER.CL.remove(SOLVER.CL.size() - 1);
+        return index == SOLVER.CL.size() ? last : SOLVER.CL.set(index, last);
+    }
 }
@@ -0,0 +1,121 @@
+package metaheuristics.grasp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import solutions.Solution;
+
+/**
+ * Bounded pool of elite solutions of a minimization problem, kept diverse
+ * for path relinking (see {@link AbstractGRASP#pathRelinking}). The distance
+ * between two solutions is the size of their symmetric difference, i.e., the
+ * number of moves relinking them.
+ * <p>
+ * A solution enters the pool if it is the best one so far, or else if it is
+ * not worse than all the members and not closer than {@link #minDistance} to
+ * any of them. Once full, it replaces the member most similar to it among
+ * the ones not better than it.
+ *
+ * @param <E> Generic type of the element which composes the solution.
+ */
+public class ElitePool<E> {
+
+    /**
+     * the maximum number of members
+     */
+    public final int capacity;
+
+    /**
+     * the minimum distance from a new member, not the best one, to the others
+     */
+    public final int minDistance;
+
+    private final List<Solution<E>> members;
+
+    /**
+     * Constructor for the ElitePool class.
+     *
+     * @param capacity    The maximum number of members.
+     * @param minDistance The minimum distance from a new member, not the best
+     *                    one, to the others.
+     */
+    public ElitePool(int capacity, int minDistance) {
+        this.capacity = capacity;
+        this.minDistance = minDistance;
+        this.members = new ArrayList<>(capacity);
+    }
+
+    /**
+     * Offers a solution to the pool, which keeps a copy of it if accepted.
+     *
+     * @param sol The solution.
+     * @return true if the solution entered the pool.
+     */
+    public boolean add(Solution<E> sol) {
+        double best = Double.POSITIVE_INFINITY, worst = Double.NEGATIVE_INFINITY;
+        int closest = Integer.MAX_VALUE, replaced = -1, replacedDistance = Integer.MAX_VALUE;
+        for (int k = 0; k < members.size(); k++) {
+            Solution<E> member = members.get(k);
+            int distance = distance(sol, member);
+            if (distance == 0)
+                return false;
+            best = Math.min(best, member.cost);
+            worst = Math.max(worst, member.cost);
+            closest = Math.min(closest, distance);
+            if (member.cost >= sol.cost && distance < replacedDistance) {
+                replaced = k;
+                replacedDistance = distance;
+            }
+        }
+        if (sol.cost >= best && (sol.cost > worst && members.size() == capacity || closest < minDistance))
+            return false;
+
+        if (members.size() < capacity)
+            members.add(sol.clone());
+        else if (replaced >= 0)
+            members.set(replaced, sol.clone());
+        else
+            return false;
+        return true;
+    }
+
+    /**
+     * Draws a member uniformly.
+     *
+     * @param rng The random generator.
+     * @return A member, or null if the pool is empty.
+     */
+    public Solution<E> select(Random rng) {
+        return members.isEmpty() ? null : members.get(rng.nextInt(members.size()));
+    }
+
+    /**
+     * @return The number of members.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Removes all the members.
+     */
+    public void clear() {
+        members.clear();
+    }
+
+    /**
+     * Determines the size of the symmetric difference of two solutions.
+     *
+     * @param sol1 A solution.
+     * @param sol2 Another solution.
+     * @return The number of elements in only one of the solutions.
+     */
+    public static <E> int distance(Solution<E> sol1, Solution<E> sol2) {
+        int common = 0;
+        for (E elem : sol1)
+            if (sol2.contains(elem))
+                common++;
+        return sol1.size() + sol2.size() - 2 * common;
+    }
+}
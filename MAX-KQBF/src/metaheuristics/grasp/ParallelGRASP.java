@@ -0,0 +1,109 @@
+package metaheuristics.grasp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import solutions.Solution;
+
+/**
+ * Parallel GRASP, which spreads the iterations of a GRASP over several
+ * solvers (the workers) of the same problem, each one running in its own
+ * thread. As the iterations are independent, each worker runs its share of
+ * them with its own random generator (the k-th one seeded with 42 + k) and
+ * its own construction and local search state, the objective function keeping
+ * its evaluation state per thread.
+ * <p>
+ * The best solution found by all the workers (the incumbent) is published
+ * through a compare-and-set, without locks. The workers using the
+ * {@link ReactiveHeuristic} share its statistics, so that each one draws its
+ * alphas from the solutions constructed by all of them. Hence the runs are
+ * reproducible unless the heuristic is reactive, or distinct solutions of the
+ * same cost race to be the incumbent.
+ *
+ * @param <E> Generic type of the element which composes the solution.
+ */
+public class ParallelGRASP<E> {
+
+    /**
+     * the workers, which must solve the same problem
+     */
+    protected final List<AbstractGRASP<E>> workers;
+
+    /**
+     * the best solution published by the workers, or null if none yet
+     */
+    private final AtomicReference<Solution<E>> incumbent = new AtomicReference<>();
+
+    /**
+     * Constructor for the ParallelGRASP class, which splits the iterations
+     * evenly among the workers.
+     *
+     * @param workers    The solvers running the iterations.
+     * @param iterations The number of iterations of the whole GRASP.
+     */
+    public ParallelGRASP(List<? extends AbstractGRASP<E>> workers, int iterations) {
+        if (workers.isEmpty())
+            throw new IllegalArgumentException("No workers to solve");
+        this.workers = new ArrayList<>(workers);
+        ReactiveHeuristic.Statistics statistics = null;
+        for (int k = 0; k < workers.size(); k++) {
+            AbstractGRASP<E> worker = workers.get(k);
+            worker.parallel = this;
+            worker.iterations = iterations / workers.size() + (k < iterations % workers.size() ? 1 : 0);
+            worker.rng.setSeed(42 + k);
+            if (worker.Heuristic instanceof ReactiveHeuristic) {
+                ReactiveHeuristic<E> heuristic = (ReactiveHeuristic<E>) worker.Heuristic;
+                if (statistics == null)
+                    statistics = heuristic.statistics;
+                else if (statistics.solSum.length == heuristic.n_alpha)
+                    heuristic.statistics = statistics;
+            }
+        }
+    }
+
+    /**
+     * Runs the workers concurrently, each one in its own thread.
+     *
+     * @return The best solution found by the workers.
+     */
+    public Solution<E> solve() {
+        incumbent.set(null);
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            List<Callable<Solution<E>>> tasks = new ArrayList<>(workers.size());
+            for (AbstractGRASP<E> worker : workers)
+                tasks.add(worker::solve);
+            for (Future<Solution<E>> future : executor.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the workers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to run a worker", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        Solution<E> best = incumbent.get();
+        return best != null ? best : workers.get(0).bestSol;
+    }
+
+    /**
+     * Offers a solution found by a worker as the incumbent, which it replaces
+     * if of smaller cost. The solution must not be modified afterwards.
+     *
+     * @param sol The solution found.
+     * @return true if the solution became the incumbent.
+     */
+    boolean publish(Solution<E> sol) {
+        for (Solution<E> best = incumbent.get(); best == null || sol.cost < best.cost; best = incumbent.get())
+            if (incumbent.compareAndSet(best, sol))
+                return true;
+        return false;
+    }
+}
@@ -1,26 +1,50 @@
 package metaheuristics.grasp;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ReactiveHeuristic<E> extends BasicHeuristic<E> {
 
+    /**
+     * The sums of the costs of the solutions constructed with each alpha and
+     * their counts. They are kept in adders, as the heuristics of the workers
+     * of a {@link ParallelGRASP} share them, each one drawing its alphas from
+     * the statistics of all of them.
+     */
+    static class Statistics {
+
+        final DoubleAdder[] solSum;
+
+        final LongAdder[] solCount;
+
+        Statistics(int n_alpha) {
+            solSum = new DoubleAdder[n_alpha];
+            solCount = new LongAdder[n_alpha];
+            for (int i = 0; i < n_alpha; i++) {
+                solSum[i] = new DoubleAdder();
+                solCount[i] = new LongAdder();
+            }
+        }
+    }
+
     final double[] alphas, pdf, solSum, solCount, prefixSum;
     final int n_alpha;
     int alphaIndex;
+    Statistics statistics;
 
     ReactiveHeuristic(double param, AbstractGRASP<E> solver) {
         super(param, solver);
         n_alpha = (int) param;
         alphas = new double[n_alpha];
         pdf = new double[n_alpha];
-        solSum = new double[n_alpha];
+        solSum = new double[n_alpha]; // snapshots of the statistics
         solCount = new double[n_alpha];
         prefixSum = new double[n_alpha];
+        statistics = new Statistics(n_alpha);
         for (int i = 0; i < n_alpha; i++) {
             alphas[i] = (i + 1) * 1.0 / n_alpha;
             pdf[i] = 1.0 / n_alpha; // starts as a uniform distribution
-            solSum[i] = 0.0;
-            solCount[i] = 0.0;
         }
     }
 
@@ -28,14 +52,17 @@ public class ReactiveHeuristic<E> extends BasicHeuristic<E> {
         prefixSum[0] = pdf[0];
         for (int i = 1; i < n_alpha; i++)
             prefixSum[i] = prefixSum[i - 1] + pdf[i];
-        double random = AbstractGRASP.rng.nextDouble();
+        double random = SOLVER.rng.nextDouble();
         alphaIndex = -(Arrays.binarySearch(prefixSum, random) + 1);
         alpha = alphas[alphaIndex];
     }
 
     void updateDistribution() {
-        for (int i = 0; i < n_alpha; i++)
+        for (int i = 0; i < n_alpha; i++) {
+            solSum[i] = statistics.solSum[i].sum();
+            solCount[i] = statistics.solCount[i].sum();
             if (solSum[i] == 0.0 || solCount[i] == 0.0) return; // keep the old pdf
+        }
         double denominator = 0.0;
         for (int i = 0; i < n_alpha; i++)
             denominator += -SOLVER.cost / solSum[i] * solCount[i];
@@ -47,8 +74,8 @@ public class ReactiveHeuristic<E> extends BasicHeuristic<E> {
     public void newSolution() {
         chooseAlpha();
         super.newSolution();
-        solSum[alphaIndex] += -SOLVER.cost;
-        solCount[alphaIndex]++;
+        statistics.solSum[alphaIndex].add(-SOLVER.cost);
+        statistics.solCount[alphaIndex].increment();
         updateDistribution();
     }
 }
@@ -18,34 +18,32 @@ public class SampledGreedyHeuristic<E> extends ConstructiveHeuristic<E> {
         SOLVER.RCL = SOLVER.makeRCL();
         SOLVER.sol = SOLVER.createEmptySol();
         SOLVER.cost = Double.POSITIVE_INFINITY;
+        SOLVER.constructionHash = 0;
+        SOLVER.startConstruction();
 
         /* Main loop, which repeats until the stopping criteria is reached. */
         while (!SOLVER.constructiveStopCriteria()) {
-            SOLVER.cost = SOLVER.ObjFunction.evaluate(SOLVER.sol);
+            SOLVER.cost = SOLVER.sol.cost;
             SOLVER.updateCL();
 
-            // Explore min(p, |CL|) candidate elements to enter the solution.
-            E minE = null;
-            int sampleSize = Math.min(p, SOLVER.CL.size());
+            // Explore min(p, |CL|) candidate elements to enter the solution,
+            // sampled by moving them to the end of the CL.
+            int size = SOLVER.CL.size(), sampleSize = Math.min(p, size), minIndex = -1;
             double minCost = Double.POSITIVE_INFINITY;
-            for (int i = 0; i < sampleSize; i++) {
-                E e = SOLVER.CL.remove(AbstractGRASP.rng.nextInt(SOLVER.CL.size()));
-                SOLVER.RCL.add(e);
-                double delta = SOLVER.ObjFunction.evaluateInsertionCost(e, SOLVER.sol);
+            for (int i = size - 1; i >= size - sampleSize; i--) {
+                int j = SOLVER.rng.nextInt(i + 1);
+                E e = SOLVER.CL.get(j);
+                SOLVER.CL.set(j, SOLVER.CL.set(i, e));
+                double delta = SOLVER.evaluateInsertionCost(e);
                 if (delta < minCost) {
-                    minE = e;
+                    minIndex = i;
                     minCost = delta;
                 }
             }
 
             // Among all candidates, chose the smallest one to insert.
-            if (SOLVER.RCL.size() == 0) break;
-            SOLVER.sol.add(minE);
-            SOLVER.RCL.remove(minE);
-            SOLVER.CL.addAll(SOLVER.RCL); // put the not chosen back
-            SOLVER.RCL.clear();
-            SOLVER.ObjFunction.evaluate(SOLVER.sol);
+            if (minIndex < 0) break;
+            insert(removeCandidate(minIndex), minCost);
         }
     }
 }
-
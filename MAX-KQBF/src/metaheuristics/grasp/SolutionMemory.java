@@ -0,0 +1,48 @@
+package metaheuristics.grasp;
+
+/**
+ * Bounded memory of the solutions met by a GRASP, given by 64-bit hashes of
+ * their elements (see {@link AbstractGRASP#key}). It is a direct-mapped
+ * table: each hash has a single slot, whose previous hash it replaces, so
+ * that the memory is fixed and each operation costs O(1), at the price of
+ * forgetting some solutions. The hashes are trusted not to collide.
+ */
+public class SolutionMemory {
+
+    private final long[] hashes;
+
+    private final boolean[] used;
+
+    private final int mask;
+
+    /**
+     * Constructor for the SolutionMemory class.
+     *
+     * @param capacity the number of slots, rounded down to a power of two.
+     */
+    public SolutionMemory(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 1));
+        this.hashes = new long[slots];
+        this.used = new boolean[slots];
+        this.mask = slots - 1;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Remembers a solution.
+     *
+     * @param hash the hash of the solution.
+     * @return true if the solution was remembered already.
+     */
+    public boolean add(long hash) {
+        int s = slot(hash);
+        if (used[s] && hashes[s] == hash)
+            return true;
+        used[s] = true;
+        hashes[s] = hash;
+        return false;
+    }
+}
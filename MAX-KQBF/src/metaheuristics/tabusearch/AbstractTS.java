@@ -25,6 +25,13 @@ public abstract class AbstractTS<E> {
      */
     public static boolean verbose = true;
 
+    /**
+     * the number of iterations between full re-evaluations of the current
+     * solution, which check the cost carried forward by the moves for
+     * numerical drift (a non-positive value disables the check)
+     */
+    public static int verificationInterval = 0;
+
     /**
      * a random number generator
      */
@@ -155,6 +162,20 @@ public abstract class AbstractTS<E> {
         this.iterations = iterations;
     }
 
+    /**
+     * Constructor for the AbstractTS class which reuses an already created
+     * objective function, e.g., one shared by several solvers.
+     *
+     * @param objFunction The objective function being optimized.
+     * @param tenure      The Tabu tenure parameter.
+     * @param iterations  The number of iterations which the TS will be executed.
+     */
+    public AbstractTS(Evaluator<E> objFunction, Integer tenure, Integer iterations) {
+        this.ObjFunction = objFunction;
+        this.tenure = tenure;
+        this.iterations = iterations;
+    }
+
     /**
      * The TS constructive heuristic, which is responsible for building a
      * feasible solution by selecting in a greedy fashion, candidate
@@ -165,6 +186,8 @@ public abstract class AbstractTS<E> {
         RCL = makeRCL();
         sol = createEmptySol();
         cost = Double.POSITIVE_INFINITY;
+        double[] deltas = new double[CL.size()];
+        int[] positions = new int[CL.size()]; // the positions in the CL of the RCL
 
         /* Main loop, which repeats until the stopping criteria is reached. */
         while (!constructiveStopCriteria()) {
@@ -176,28 +199,27 @@ public abstract class AbstractTS<E> {
              * Explore all candidate elements to enter the solution, saving the
              * highest and lowest cost variation achieved by the candidates.
              */
-            for (E c : CL) {
-                Double deltaCost = ObjFunction.evaluateInsertionCost(c, sol);
-                if (deltaCost < minCost)
-                    minCost = deltaCost;
-            }
+            ObjFunction.evaluateInsertionCosts(CL, sol, deltas);
+            for (int i = 0; i < CL.size(); i++)
+                if (deltas[i] < minCost)
+                    minCost = deltas[i];
 
             /*
              * Among all candidates, insert into the RCL those with the highest
              * performance.
              */
-            for (E c : CL) {
-                Double deltaCost = ObjFunction.evaluateInsertionCost(c, sol);
-                if (deltaCost == minCost)
-                    RCL.add(c);
-            }
+            for (int i = 0; i < CL.size(); i++)
+                if (deltas[i] == minCost) {
+                    positions[RCL.size()] = i;
+                    RCL.add(CL.get(i));
+                }
 
             /* Choose a candidate randomly from the RCL */
             if (RCL.size() == 0)
                 break;
-            int rndIndex = rng.nextInt(RCL.size());
-            sol.add(CL.remove(rndIndex));
-            ObjFunction.evaluate(sol);
+            int rndIndex = positions[rng.nextInt(RCL.size())];
+            E elem = CL.remove(rndIndex);
+            ObjFunction.applyInsertion(elem, deltas[rndIndex], sol);
             RCL.clear();
         }
     }
@@ -222,10 +244,12 @@ public abstract class AbstractTS<E> {
             if (totalTime > MAXIMUM_RUNNING_TIME_SECONDS)
                 break;
             neighborhoodMove();
+            if (verificationInterval > 0 && (iter + 1) % verificationInterval == 0)
+                verifyCost(iter);
             if (verbose && iter % interval == 0)
                 System.out.println("(Iter. " + iter + ") CurrSol = " + sol);
             if (bestSol.cost > sol.cost) {
-                bestSol = new Solution<>(sol);
+                bestSol = sol.clone();
                 if (verbose)
                     System.out.println("(Iter. " + iter + ") BestSol = " + bestSol);
             }
@@ -234,6 +258,21 @@ public abstract class AbstractTS<E> {
         return bestSol;
     }
 
+    /**
+     * Re-evaluates the current solution from scratch, replacing the cost
+     * carried forward by the moves, and reports any drift found.
+     *
+     * @param iteration the current iteration, used when reporting.
+     */
+    protected void verifyCost(int iteration) {
+        double carriedCost = sol.cost;
+        ObjFunction.evaluate(sol);
+        double tolerance = ObjFunction.isExact() ? 0.0 : 1e-6 * Math.max(1.0, Math.abs(sol.cost));
+        if (verbose && Math.abs(carriedCost - sol.cost) > tolerance)
+            System.out.println("(Iter. " + iteration + ") Cost drift: carried = " + carriedCost +
+                    ", evaluated = " + sol.cost);
+    }
+
     /**
      * A standard stopping criteria for the constructive heuristic is to repeat
      * until the incumbent solution improves by inserting a new candidate
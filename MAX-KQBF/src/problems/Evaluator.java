@@ -1,5 +1,7 @@
 package problems;
 
+import java.util.List;
+
 import solutions.Solution;
 
 /**
@@ -66,4 +68,77 @@ public interface Evaluator<E> {
      * @return the cost variation resulting from the elements exchange.
      */
     Double evaluateExchangeCost(E elemIn, E elemOut, Solution<E> sol);
+
+    /**
+     * Evaluates the cost variation of inserting each one of the candidates
+     * into a solution. Implementations should override it whenever the
+     * costs of all candidates can be obtained at once more efficiently than
+     * by calling {@link #evaluateInsertionCost} for each of them.
+     *
+     * @param candidates the elements under consideration for insertion.
+     * @param sol        the solution for which the insertions are being
+     *                   evaluated.
+     * @param deltas     the array to be filled with the cost variations, the
+     *                   one of candidates.get(k) being stored at deltas[k].
+     */
+    default void evaluateInsertionCosts(List<E> candidates, Solution<E> sol, double[] deltas) {
+        for (int k = 0; k < candidates.size(); k++)
+            deltas[k] = evaluateInsertionCost(candidates.get(k), sol);
+    }
+
+    /**
+     * Evaluates the cost variation of removing each one of the candidates from
+     * a solution. Implementations should override it whenever the costs of
+     * all candidates can be obtained at once more efficiently than by calling
+     * {@link #evaluateRemovalCost} for each of them.
+     *
+     * @param candidates the elements under consideration for removal.
+     * @param sol        the solution for which the removals are being
+     *                   evaluated.
+     * @param deltas     the array to be filled with the cost variations, the
+     *                   one of candidates.get(k) being stored at deltas[k].
+     */
+    default void evaluateRemovalCosts(List<E> candidates, Solution<E> sol, double[] deltas) {
+        for (int k = 0; k < candidates.size(); k++)
+            deltas[k] = evaluateRemovalCost(candidates.get(k), sol);
+    }
+
+    /**
+     * Inserts an element into a solution, carrying its cost forward by the
+     * already known cost variation instead of evaluating it from scratch.
+     *
+     * @param elem      the element being inserted.
+     * @param deltaCost the cost variation of the insertion, as given by
+     *                  {@link #evaluateInsertionCost}.
+     * @param sol       the solution receiving the element.
+     */
+    default void applyInsertion(E elem, Double deltaCost, Solution<E> sol) {
+        sol.add(elem);
+        sol.cost += deltaCost;
+    }
+
+    /**
+     * Removes an element from a solution, carrying its cost forward by the
+     * already known cost variation instead of evaluating it from scratch.
+     *
+     * @param elem      the element being removed.
+     * @param deltaCost the cost variation of the removal, as given by
+     *                  {@link #evaluateRemovalCost}.
+     * @param sol       the solution losing the element.
+     */
+    default void applyRemoval(E elem, Double deltaCost, Solution<E> sol) {
+        sol.remove(elem);
+        sol.cost += deltaCost;
+    }
+
+    /**
+     * Tells whether the costs given by this evaluator are exact, i.e., free of
+     * floating point rounding, so that they can be compared without any
+     * tolerance.
+     *
+     * @return true if the costs are exact.
+     */
+    default boolean isExact() {
+        return false;
+    }
 }
@@ -1,22 +1,29 @@
 package problems.kqbf;
 
+import problems.qbf.BinaryInstance;
+import problems.qbf.InstanceScanner;
 import problems.qbf.QBF_Inverse;
 import solutions.KSolution;
 import solutions.Solution;
 
-import java.io.*;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class KQBF extends QBF_Inverse {
 
     /**
-     * The vector W of weights for the KQBF
+     * The vector W of weights for the KQBF. Like the coefficients, it is
+     * read-only once the input is read.
      */
-    public Double[] W;
+    public double[] W;
 
     /**
      * The maximum capacity for the KQBF
      */
-    public Double W_max;
+    public double W_max;
+
+    private static final Map<String, KQBF> SHARED = new HashMap<>();
 
     /**
      * Constructor for the KQBF class.
@@ -29,33 +36,76 @@ public class KQBF extends QBF_Inverse {
         super(filename);
     }
 
+    /**
+     * Reads each instance only once, sharing it among all the solvers asking
+     * for it, which may do so as the instance is read-only.
+     *
+     * @param filename Name of the file for which the objective function parameters
+     *                 should be read.
+     * @return The KQBF instance read from the file.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static synchronized KQBF shared(String filename) throws IOException {
+        KQBF kqbf = SHARED.get(filename);
+        if (kqbf == null) {
+            kqbf = new KQBF(filename);
+            SHARED.put(filename, kqbf);
+        }
+        return kqbf;
+    }
+
     @Override
     protected Integer readInput(String filename) throws IOException {
-        Reader fileInst = new BufferedReader(new FileReader(filename));
-        StreamTokenizer stok = new StreamTokenizer(fileInst);
-
-        stok.nextToken();
-        int _size = (int) stok.nval;
-        stok.nextToken();
-        W_max = stok.nval;
-        W = new Double[_size];
-
-        for (int i = 0; i < _size; i++) {
-            stok.nextToken();
-            W[i] = stok.nval;
+        BinaryInstance instance = BinaryInstance.isBinary(filename) ? BinaryInstance.read(filename)
+                : BinaryInstance.loadCache(filename, true);
+        if (instance != null) {
+            if (instance.weights == null)
+                throw new IOException(filename + " has no knapsack weights");
+            W_max = instance.capacity;
+            W = instance.weights;
+            A = instance.A;
+            return instance.size;
         }
 
-        read_coefs(stok, _size);
+        int _size;
+        try (InstanceScanner in = new InstanceScanner(filename)) {
+            _size = in.nextInt();
+            W_max = in.nextDouble();
+            W = new double[_size];
+            for (int i = 0; i < _size; i++)
+                W[i] = in.nextDouble();
+            read_coefs(in, _size);
+        }
+        BinaryInstance.saveCache(filename, A, W, W_max);
         return _size;
     }
 
     @Override
     public Double evaluate(Solution<Integer> sol) {
-        setVariables(sol);
-        KSolution<Integer> aux = (KSolution<Integer>) sol;
-        aux.weigth = 0.0;
-        for (int i = 0; i < size; i++)
-            aux.weigth += variables[i] * W[i];
-        return sol.cost = evaluateQBF();
+        double weight = 0.0;
+        for (Integer elem : sol)
+            weight += W[elem];
+        ((KSolution) sol).weigth = weight;
+        return super.evaluate(sol);
+    }
+
+    /**
+     * {@inheritDoc} The knapsack weight of the solution is carried forward as
+     * well.
+     */
+    @Override
+    public void applyInsertion(Integer elem, Double deltaCost, Solution<Integer> sol) {
+        super.applyInsertion(elem, deltaCost, sol);
+        ((KSolution) sol).weigth += W[elem];
+    }
+
+    /**
+     * {@inheritDoc} The knapsack weight of the solution is carried forward as
+     * well.
+     */
+    @Override
+    public void applyRemoval(Integer elem, Double deltaCost, Solution<Integer> sol) {
+        super.applyRemoval(elem, deltaCost, sol);
+        ((KSolution) sol).weigth -= W[elem];
     }
 }
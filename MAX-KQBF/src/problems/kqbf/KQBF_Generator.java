@@ -0,0 +1,130 @@
+package problems.kqbf;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.SplittableRandom;
+
+import problems.qbf.QBF_Generator;
+
+/**
+ * Generator of synthetic KQBF instances. The coefficients are generated as in
+ * {@link QBF_Generator}, while the weights are integers drawn from the chosen
+ * distribution over a range, and the knapsack capacity is a fraction of the
+ * total weight. The default parameters reproduce the statistics of the
+ * shipped instances: weights uniform in [0, 20] and a capacity of a third of
+ * the total weight. The weights are the only part of the instance held in
+ * memory.
+ */
+public class KQBF_Generator extends QBF_Generator {
+
+    /**
+     * The distributions of the weights.
+     */
+    public enum WeightDistribution {
+        /**
+         * Uniform over the range of the weights.
+         */
+        UNIFORM,
+        /**
+         * Normal, centered at the middle of the range of the weights and with
+         * a sixth of its length as standard deviation, clamped to the range.
+         */
+        NORMAL
+    }
+
+    /**
+     * The vector W of weights.
+     */
+    protected final double[] W;
+
+    /**
+     * The knapsack capacity.
+     */
+    protected final double W_max;
+
+    /**
+     * Constructor for the KQBF_Generator class.
+     *
+     * @param size           Dimension of the instance.
+     * @param density        The probability of each coefficient being
+     *                       nonzero, in (0, 1].
+     * @param minCoefficient The smallest coefficient.
+     * @param maxCoefficient The largest coefficient.
+     * @param distribution   The distribution of the weights.
+     * @param minWeight      The smallest weight.
+     * @param maxWeight      The largest weight.
+     * @param capacityRatio  The capacity as a fraction of the total weight.
+     * @param seed           The seed of the instance.
+     */
+    public KQBF_Generator(int size, double density, int minCoefficient, int maxCoefficient,
+                          WeightDistribution distribution, int minWeight, int maxWeight,
+                          double capacityRatio, long seed) {
+        super(size, density, minCoefficient, maxCoefficient, seed);
+        if (minWeight < 0 || minWeight > maxWeight || capacityRatio <= 0)
+            throw new IllegalArgumentException("Invalid instance parameters");
+
+        SplittableRandom rng = new SplittableRandom(mix(~seed));
+        W = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            if (distribution == WeightDistribution.UNIFORM)
+                W[i] = rng.nextInt(minWeight, maxWeight + 1);
+            else {
+                double w = (minWeight + maxWeight) / 2.0 + rng.nextGaussian() * (maxWeight - minWeight) / 6.0;
+                W[i] = Math.max(minWeight, Math.min(maxWeight, Math.round(w)));
+            }
+            total += W[i];
+        }
+        W_max = Math.floor(capacityRatio * total);
+    }
+
+    @Override
+    public double[] weights() {
+        return W;
+    }
+
+    @Override
+    public double capacity() {
+        return W_max;
+    }
+
+    @Override
+    protected void writePreamble(Writer out) throws IOException {
+        out.write(size + "\n" + (long) W_max + "\n");
+        StringBuilder weights = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                weights.append(' ');
+            weights.append((long) W[i]);
+        }
+        out.append(weights).append('\n');
+    }
+
+    /**
+     * Generates a KQBF instance.
+     *
+     * @param args the file to be written, the dimension of the instance and
+     *             the options -density, -min, -max, -weights (uniform or
+     *             normal), -minWeight, -maxWeight, -capacity, -seed and
+     *             -format.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: KQBF_Generator <file> <n> [-density 1.0] [-min -10] [-max 10] " +
+                    "[-weights uniform|normal] [-minWeight 0] [-maxWeight 20] [-capacity 0.3333] [-seed 0] " +
+                    "[-format text|rows|packed]");
+            return;
+        }
+        KQBF_Generator generator = new KQBF_Generator(Integer.parseInt(args[1]),
+                Double.parseDouble(option(args, "-density", "1.0")),
+                Integer.parseInt(option(args, "-min", "-10")),
+                Integer.parseInt(option(args, "-max", "10")),
+                WeightDistribution.valueOf(option(args, "-weights", "uniform").toUpperCase()),
+                Integer.parseInt(option(args, "-minWeight", "0")),
+                Integer.parseInt(option(args, "-maxWeight", "20")),
+                Double.parseDouble(option(args, "-capacity", "0.3333")),
+                Long.parseLong(option(args, "-seed", "0")));
+        generator.write(args[0], option(args, "-format", "text"));
+    }
+}
@@ -2,28 +2,37 @@ package problems.kqbf.solvers;
 
 import problems.Evaluator;
 import problems.kqbf.KQBF;
+import problems.qbf.IncrementalQBF;
 import problems.qbf.solvers.GA_QBF;
 import solutions.KSolution;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Comparator;
 
-class Contribution {
-    protected Double contribution;
-    protected Integer variable;
+public class GA_KQBF extends GA_QBF {
 
-    public Contribution(Double contribution, Integer variable) {
-        this.contribution = contribution;
-        this.variable = variable;
-    }
+    /**
+     * The working memory of {@link #fixChromosome}, kept per thread, as the
+     * chromosomes may be repaired concurrently.
+     */
+    private static class Repair {
+
+        /**
+         * the items of the chromosome being repaired
+         */
+        final int[] items;
 
-    public Double getContribution() {
-        return contribution;
+        /**
+         * the inverse of the weight of each item
+         */
+        final double[] inverseWeights;
+
+        Repair(int n) {
+            items = new int[n];
+            inverseWeights = new double[n];
+        }
     }
-}
 
-public class GA_KQBF extends GA_QBF {
+    private final ThreadLocal<Repair> repairs = ThreadLocal.withInitial(() -> new Repair(chromosomeSize));
 
     /**
      * Constructor for the GA_QBF class. The QBF objective function is passed as
@@ -41,8 +50,21 @@ public class GA_KQBF extends GA_QBF {
         generations = chromosomeSize * 10;
     }
 
+    /**
+     * Constructor for the GA_KQBF class which shares an already read KQBF
+     * instance with other solvers.
+     *
+     * @param popSize      Size of the population.
+     * @param mutationRate The mutation rate.
+     * @param objFunction  The KQBF objective function.
+     */
+    public GA_KQBF(Integer popSize, Double mutationRate, KQBF objFunction) {
+        super(0, popSize, mutationRate, objFunction);
+        generations = chromosomeSize * 10;
+    }
+
     public double weight() {
-        return ((KSolution<Integer>) bestSol).weigth;
+        return ((KSolution) bestSol).weigth;
     }
 
     @Override
@@ -51,97 +73,74 @@ public class GA_KQBF extends GA_QBF {
     }
 
     @Override
-    public KSolution<Integer> createEmptySol() {
-        KSolution<Integer> sol = new KSolution<>(super.createEmptySol());
+    public KSolution createEmptySol() {
+        KSolution sol = new KSolution(super.createEmptySol());
         sol.weigth = 0.0;
         return sol;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The chromosomes whose weight exceed the capacity are fixed (see
+     * {@link #fixChromosome}).
+     */
     @Override
-    protected Chromosome generateRandomChromosome() {
-        Chromosome chromosome = new Chromosome();
-        for (int i = 0; i < chromosomeSize; i++)
-            chromosome.add(rng.nextInt(2));
-        fixChromosome(chromosome); // make an invalid chromosome viable
-        return chromosome;
+    protected void repair(long[] chromosome) {
+        fixChromosome(chromosome);
     }
 
-    protected void fixChromosome(Chromosome chromosome) {
-        var decodedChromosome = (KSolution<Integer>) decode(chromosome);
-        double currWeight = decodedChromosome.weigth;
-
-        // Se o peso do cromossomo ultrapassar o peso da mochila, remove alguns items em
-        // ordem ordem crescente de benefício/peso:
+    /**
+     * Makes a chromosome fit the knapsack by removing its items greedily, in
+     * increasing order of benefit/weight, i.e., of their contribution to the
+     * QBF over their weight. The contributions are computed once, by the
+     * incremental evaluator, and updated after each removal. As a removal
+     * changes the contribution of every item interacting with the one removed,
+     * i.e., of all of them in a dense instance, the next item is chosen by a
+     * scan refreshing the ratios, rather than by keeping them ordered.
+     *
+     * @param chromosome The genotype being repaired.
+     */
+    protected void fixChromosome(long[] chromosome) {
         KQBF auxRef = ((KQBF) ObjFunction);
-        if (currWeight > auxRef.W_max) {
-            // Armazena os items que estão na mochila e seu benefício/peso:
-            ArrayList<Contribution> contributions = new ArrayList<>();
-            for (int i = 0; i < chromosomeSize; i++)
-                if (chromosome.get(i) == 1.0) {
-                    var contribution = auxRef.evaluateContributionQBF(i, decodedChromosome) / auxRef.W[i];
-                    contributions.add(new Contribution(contribution, i));
-                }
-
-            contributions.sort(Comparator.comparing(Contribution::getContribution)); // ordena em ordem crescente
-            // Remove os que menos contribuem até que o cromossomo seja viável:
-            while (currWeight > auxRef.W_max) {
-                var worstVar = contributions.remove(0);
-                chromosome.set(worstVar.variable, 0);
-                currWeight -= auxRef.W[worstVar.variable];
+        Repair repair = repairs.get();
+        int[] items = repair.items;
+        int count = 0;
+        double currWeight = 0.0;
+        for (int w = 0; w < words; w++)
+            for (long word = chromosome[w]; word != 0; word &= word - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                items[count++] = i;
+                currWeight += auxRef.W[i];
             }
+        if (currWeight <= auxRef.W_max)
+            return;
+
+        IncrementalQBF incremental = this.incremental.get();
+        double[] inverseWeights = repair.inverseWeights;
+        incremental.clear();
+        for (int a = 0; a < count; a++) {
+            incremental.insert(items[a]);
+            inverseWeights[a] = 1.0 / auxRef.W[items[a]];
         }
-    }
-
-    @Override
-    protected Population crossover(Population parents) {
-        Population offsprings = new Population();
 
-        for (int i = 0; i < popSize; i = i + 2) {
-            Chromosome parent1 = parents.get(i), parent2 = parents.get(i + 1);
-
-            if (parent1 == parent2) { // Save time as the offspring will be the same as the parents:
-                offsprings.add(parent1);
-                offsprings.add(parent2);
-                continue;
-            }
-
-            int crosspoint1 = rng.nextInt(chromosomeSize + 1);
-            int crosspoint2 = crosspoint1 + rng.nextInt((chromosomeSize + 1) - crosspoint1);
-
-            Chromosome offspring1 = new Chromosome(), offspring2 = new Chromosome();
-
-            for (int j = 0; j < chromosomeSize; j++)
-                if (j >= crosspoint1 && j < crosspoint2) {
-                    offspring1.add(parent2.get(j));
-                    offspring2.add(parent1.get(j));
-                } else {
-                    offspring1.add(parent1.get(j));
-                    offspring2.add(parent2.get(j));
+        // Removes the items contributing the least until the chromosome fits:
+        while (currWeight > auxRef.W_max) {
+            int worst = 0;
+            double worstRatio = Double.POSITIVE_INFINITY;
+            for (int a = 0; a < count; a++) {
+                double ratio = incremental.contribution(items[a]) * inverseWeights[a];
+                if (ratio < worstRatio || ratio == worstRatio && items[a] < items[worst]) {
+                    worst = a;
+                    worstRatio = ratio;
                 }
-
-            // Make the invalid chromosomes viable:
-            fixChromosome(offspring1);
-            fixChromosome(offspring2);
-
-            offspring1.fitness = fitness(offspring1);
-            offspring2.fitness = fitness(offspring2);
-            offsprings.add(offspring1);
-            offsprings.add(offspring2);
-        }
-
-        return offsprings;
-    }
-
-    protected Population mutate(Population offsprings) {
-        for (Chromosome c : offsprings) {
-            if (rng.nextDouble() < mutationRate) {
-                for (int locus = 0; locus < chromosomeSize; locus++)
-                    if (rng.nextDouble() < mutationRate / 10)
-                        mutateGene(c, locus);
-                fixChromosome(c); // make the invalid chromosomes viable
-                c.fitness = fitness(c);
             }
+            int item = items[worst];
+            chromosome[item >>> 6] &= ~(1L << item);
+            currWeight -= auxRef.W[item];
+            incremental.remove(item);
+            items[worst] = items[--count];
+            inverseWeights[worst] = inverseWeights[count];
         }
-        return offsprings;
     }
 }
@@ -1,5 +1,7 @@
 package problems.kqbf.solvers;
 
+import problems.kqbf.KQBF;
+
 import java.io.IOException;
 
 public class GA_KQBF_Adaptative_Mutation extends GA_KQBF {
@@ -10,24 +12,24 @@ public class GA_KQBF_Adaptative_Mutation extends GA_KQBF {
         super(popSize, mutationRate, filename);
     }
 
+    public GA_KQBF_Adaptative_Mutation(Integer popSize, Double mutationRate, KQBF objFunction) {
+        super(popSize, mutationRate, objFunction);
+    }
+
     @Override
-    protected Population mutate(Population offsprings) {
-        Double sumFitness = 0.0, meanFitness;
-        for (Chromosome c : offsprings)
-            sumFitness += c.fitness;
+    protected void mutate(Population offsprings) {
+        double sumFitness = 0.0, meanFitness;
+        for (int i = 0; i < popSize; i++)
+            sumFitness += offsprings.fitness[i];
         meanFitness = sumFitness / popSize;
 
-        for (Chromosome c : offsprings) {
-            var currMutationRate = c.fitness >= meanFitness ? mutationRate : mutationRate * MULTIPLIER;
+        for (int i = 0; i < popSize; i++) {
+            var currMutationRate = offsprings.fitness[i] >= meanFitness ? mutationRate : mutationRate * MULTIPLIER;
             if (rng.nextDouble() < currMutationRate) {
-                for (int locus = 0; locus < chromosomeSize; locus++)
-                    if (rng.nextDouble() < currMutationRate / 10)
-                        mutateGene(c, locus);
-                fixChromosome(c); // make the invalid chromosomes viable
-                c.fitness = fitness(c);
+                offsprings.modify(i);
+                mutateGenes(offsprings.chromosomes[i], currMutationRate / 10);
             }
         }
-
-        return offsprings;
+        evaluate(offsprings); // also makes the invalid chromosomes viable
     }
 }
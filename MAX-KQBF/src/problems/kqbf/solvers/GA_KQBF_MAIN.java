@@ -1,5 +1,7 @@
 package problems.kqbf.solvers;
 
+import metaheuristics.ga.IslandGA;
+import problems.kqbf.KQBF;
 import solutions.Solution;
 
 import java.io.IOException;
@@ -19,6 +21,7 @@ public class GA_KQBF_MAIN {
             "kqbf400");
     private static final List<Integer> POPULATION_LIST = Arrays.asList(100, 200);
     private static final List<Double> MUTATION_LIST = Arrays.asList(10.0 / 100.0, 20.0 / 100.0);
+    private static final int MIGRATION_INTERVAL = 50, MIGRANTS = 2;
 
     /**
      * A main method used for testing the Genetic Algorithm metaheuristic.
@@ -30,7 +33,7 @@ public class GA_KQBF_MAIN {
             for (var population : POPULATION_LIST)
                 for (var mutation : MUTATION_LIST) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new GA_KQBF(population, mutation, fileName), fileName);
+                    run_algorithm(new GA_KQBF(population, mutation, KQBF.shared(fileName)), fileName);
                 }
 
         // GA with Uniform Crossover:
@@ -39,7 +42,7 @@ public class GA_KQBF_MAIN {
             for (var population : POPULATION_LIST)
                 for (var mutation : MUTATION_LIST) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new GA_KQBF_Uniform_Crossover(population, mutation, fileName), fileName);
+                    run_algorithm(new GA_KQBF_Uniform_Crossover(population, mutation, KQBF.shared(fileName)), fileName);
                 }
 
         // GA with Adaptative Mutation:
@@ -48,8 +51,39 @@ public class GA_KQBF_MAIN {
             for (var population : POPULATION_LIST)
                 for (var mutation : MUTATION_LIST) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new GA_KQBF_Adaptative_Mutation(population, mutation, fileName), fileName);
+                    run_algorithm(new GA_KQBF_Adaptative_Mutation(population, mutation, KQBF.shared(fileName)), fileName);
                 }
+
+        // Island model, one island of each GA above:
+        System.out.println("----------------------------------- Island model");
+        for (var instance : INSTANCE_LIST)
+            for (var population : POPULATION_LIST)
+                for (var mutation : MUTATION_LIST) {
+                    var fileName = INSTANCES_DIR + instance;
+                    var kqbf = KQBF.shared(fileName);
+                    run_islands(new IslandGA<>(List.of(
+                            new GA_KQBF(population, mutation, kqbf),
+                            new GA_KQBF_Uniform_Crossover(population, mutation, kqbf),
+                            new GA_KQBF_Adaptative_Mutation(population, mutation, kqbf)),
+                            IslandGA.Topology.RING, MIGRATION_INTERVAL, MIGRANTS), fileName);
+                }
+    }
+
+    private static void run_islands(IslandGA<Integer> islands, String fileName) {
+        long startTime = System.currentTimeMillis();
+        System.out.println("\n\n=============================");
+        Solution<Integer> bestSolution = islands.solve();
+        GA_KQBF bestIsland = (GA_KQBF) islands.getBestIsland();
+        long endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("-----------------");
+        System.out.println("instance: " + fileName);
+        System.out.println("islands: " + islands.topology + " of " + bestIsland.popSize + ", migrating every " + islands.migrationInterval);
+        System.out.println("mutation: " + bestIsland.mutationRate);
+        System.out.println("generations: " + bestIsland.getGenerations());
+        System.out.println("Best Solution Found: " + bestSolution);
+        System.out.println("Knapsack Weight of Best Solution: " + bestIsland.weight());
+        System.out.println("Time = " + (double) totalTime / (double) 1000 + " seg");
     }
 
     private static void run_algorithm(GA_KQBF geneticAlgo, String fileName) {
@@ -8,7 +8,6 @@ import solutions.KSolution;
 import solutions.Solution;
 
 import java.io.IOException;
-import java.util.Collections;
 
 public class GRASP_KQBF extends GRASP_QBF {
 
@@ -33,23 +32,51 @@ public class GRASP_KQBF extends GRASP_QBF {
         objFunction = (KQBF) ObjFunction;
     }
 
+    /**
+     * Constructor for the GRASP_KQBF class which shares an already read KQBF
+     * instance with other solvers.
+     *
+     * @param param       A double hyperparameter used by the constructive heuristics.
+     * @param objFunction The KQBF objective function.
+     * @param hType       The constructive heuristic type to be used in generating new solutions.
+     * @param stImproving If should use the first-improving local search, or the best-improving.
+     */
+    public GRASP_KQBF(Double param, KQBF objFunction,
+                      ConstructiveHeuristic.ConstructiveHeuristicType hType, boolean stImproving) {
+        super(param, iterations, objFunction, hType, stImproving);
+        this.objFunction = objFunction;
+    }
+
     @Override
     protected Evaluator<Integer> initEvaluator(String filename) throws IOException {
         return new KQBF(filename);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The items which no longer fit the knapsack are swap-removed from the
+     * back, as the ones moved have already been checked.
+     */
     @Override
     public void updateCL() {
-        Double currWeight = ((KSolution<Integer>) sol).weigth;
-        CL.removeIf(c -> // if adding this item will overpass the capacity
-                objFunction.W[c] > objFunction.W_max - currWeight
-        );
-        Collections.shuffle(CL);
+        double slack = objFunction.W_max - ((KSolution) sol).weigth;
+        for (int k = CL.size() - 1; k >= 0; k--)
+            if (objFunction.W[CL.get(k)] > slack) { // if adding this item will overpass the capacity
+                Integer last = CL.remove(CL.size() - 1);
+                if (k < CL.size())
+                    CL.set(k, last);
+            }
+    }
+
+    @Override
+    protected boolean fits(int elem) {
+        return objFunction.W[elem] <= objFunction.W_max - ((KSolution) sol).weigth;
     }
 
     @Override
-    public KSolution<Integer> createEmptySol() {
-        KSolution<Integer> sol = new KSolution<>(super.createEmptySol());
+    public KSolution createEmptySol() {
+        KSolution sol = new KSolution(super.createEmptySol());
         sol.weigth = 0.0;
         return sol;
     }
@@ -60,7 +87,7 @@ public class GRASP_KQBF extends GRASP_QBF {
     }
 
     public double weight() {
-        return ((KSolution<Integer>) bestSol).weigth;
+        return ((KSolution) bestSol).weigth;
     }
 
     /**
@@ -70,7 +97,7 @@ public class GRASP_KQBF extends GRASP_QBF {
         long startTime = System.currentTimeMillis();
         GRASP_QBF grasp = new GRASP_KQBF(0.05, "instances/kqbf/kqbf020",
                 ConstructiveHeuristic.ConstructiveHeuristicType.Basic, true);
-        KSolution<Integer> bestSol = (KSolution<Integer>) grasp.solve();
+        KSolution bestSol = (KSolution) grasp.solve();
         System.out.println("maxVal = " + bestSol);
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
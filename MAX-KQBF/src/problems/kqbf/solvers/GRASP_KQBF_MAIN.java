@@ -1,9 +1,14 @@
 package problems.kqbf.solvers;
 
+import metaheuristics.grasp.AbstractGRASP;
 import metaheuristics.grasp.ConstructiveHeuristic;
+import metaheuristics.grasp.ParallelGRASP;
+import problems.kqbf.KQBF;
+import solutions.KSolution;
 import solutions.Solution;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -19,6 +24,7 @@ public class GRASP_KQBF_MAIN {
             "kqbf200",
             "kqbf400");
     private static final List<Double> ALPHAS = Arrays.asList(0.05, 0.5);
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
 
     /**
      * A main method used for testing the Genetic Algorithm metaheuristic.
@@ -31,7 +37,7 @@ public class GRASP_KQBF_MAIN {
             for (var alpha : ALPHAS)
                 for (boolean stImproving : new boolean[]{true, false}) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new GRASP_KQBF(alpha, fileName, heu, stImproving), fileName);
+                    run_algorithm(new GRASP_KQBF(alpha, KQBF.shared(fileName), heu, stImproving), fileName);
                 }
 
         // Sampled Greedy constructive heuristic:
@@ -40,7 +46,7 @@ public class GRASP_KQBF_MAIN {
         for (var instance : INSTANCE_LIST)
             for (boolean stImproving : new boolean[]{true, false}) {
                 var fileName = INSTANCES_DIR + instance;
-                run_algorithm(new GRASP_KQBF(20.0, fileName, heu, stImproving), fileName);
+                run_algorithm(new GRASP_KQBF(20.0, KQBF.shared(fileName), heu, stImproving), fileName);
             }
 
         // Reactive constructive heuristic:
@@ -49,8 +55,37 @@ public class GRASP_KQBF_MAIN {
         for (var instance : INSTANCE_LIST)
             for (boolean stImproving : new boolean[]{true, false}) {
                 var fileName = INSTANCES_DIR + instance;
-                run_algorithm(new GRASP_KQBF(100.0, fileName, heu, stImproving), fileName);
+                run_algorithm(new GRASP_KQBF(100.0, KQBF.shared(fileName), heu, stImproving), fileName);
             }
+
+        // Parallel GRASP, one worker per core:
+        System.out.println("----------------------------------- Parallel GRASP (" + WORKERS + " workers)");
+        heu = ConstructiveHeuristic.ConstructiveHeuristicType.Reactive;
+        for (var instance : INSTANCE_LIST)
+            for (boolean stImproving : new boolean[]{true, false}) {
+                var fileName = INSTANCES_DIR + instance;
+                var workers = new ArrayList<GRASP_KQBF>();
+                for (int k = 0; k < WORKERS; k++)
+                    workers.add(new GRASP_KQBF(100.0, KQBF.shared(fileName), heu, stImproving));
+                run_parallel(new ParallelGRASP<>(workers, GRASP_KQBF.iterations), workers.get(0), fileName);
+            }
+    }
+
+    private static void run_parallel(ParallelGRASP<Integer> graspAlgo, GRASP_KQBF worker, String fileName) {
+        long startTime = System.currentTimeMillis();
+        System.out.println("\n\n=============================");
+        Solution<Integer> bestSolution = graspAlgo.solve();
+        double knapsackWeight = ((KSolution) bestSolution).weigth;
+        long endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("-----------------");
+        System.out.println("instance: " + fileName);
+        System.out.println("param: " + worker.Heuristic.PARAM);
+        System.out.println("firstImproving: " + worker.stImproving);
+        System.out.println("iterations: " + GRASP_KQBF.iterations);
+        System.out.println("Best Solution Found: " + bestSolution);
+        System.out.println("Knapsack Weight of Best Solution: " + knapsackWeight);
+        System.out.println("Time = " + (double) totalTime / (double) 1000 + " seg");
     }
 
     private static void run_algorithm(GRASP_KQBF graspAlgo, String fileName) {
@@ -67,6 +102,9 @@ public class GRASP_KQBF_MAIN {
         System.out.println("iterations: " + GRASP_KQBF.iterations);
         System.out.println("Best Solution Found: " + bestSolution);
         System.out.println("Knapsack Weight of Best Solution: " + knapsackWeight);
+        if (AbstractGRASP.memoryCapacity > 0)
+            System.out.println("Repeated constructions: " + graspAlgo.getSkippedSearches() +
+                    " (local search time saved = " + graspAlgo.savedSearchTime() + " seg)");
         System.out.println("Time = " + (double) totalTime / (double) 1000 + " seg");
     }
 }
@@ -45,8 +45,22 @@ public class TS_KQBF extends TS_QBF {
         objFunction = (KQBF) ObjFunction;
     }
 
+    /**
+     * Constructor for the TS_KQBF class which shares an already read KQBF
+     * instance with other solvers.
+     *
+     * @param tenure      The Tabu tenure parameter.
+     * @param objFunction The KQBF objective function.
+     * @param stImproving If should use the first-improving local search, or the
+     *                    best-improving.
+     */
+    public TS_KQBF(int tenure, KQBF objFunction, boolean stImproving) {
+        super(tenure, iterations, objFunction, stImproving);
+        this.objFunction = objFunction;
+    }
+
     public double weight() {
-        return ((KSolution<Integer>) sol).weigth;
+        return ((KSolution) bestSol).weigth;
     }
 
     @Override
@@ -56,14 +70,14 @@ public class TS_KQBF extends TS_QBF {
 
     @Override
     public void updateCL() {
-        Double currWeight = ((KSolution<Integer>) sol).weigth;
+        double currWeight = ((KSolution) sol).weigth;
         CL.removeIf(c -> // if adding this item will overpass the capacity
         objFunction.W[c] > objFunction.W_max - currWeight);
     }
 
     @Override
-    public KSolution<Integer> createEmptySol() {
-        KSolution<Integer> sol = new KSolution<>(super.createEmptySol());
+    public KSolution createEmptySol() {
+        KSolution sol = new KSolution(super.createEmptySol());
         sol.weigth = 0.0;
         return sol;
     }
@@ -83,7 +97,7 @@ public class TS_KQBF extends TS_QBF {
         System.out.println("\n\n=============================");
         TS_KQBF tabuSearch = new TS_KQBF(tenure, fileName, firstImproving);
         Solution<Integer> bestSolution = tabuSearch.solve();
-        double knapsackWeight = ((KSolution<Integer>) tabuSearch.sol).weigth;
+        double knapsackWeight = tabuSearch.weight();
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
         System.out.println("-----------------");
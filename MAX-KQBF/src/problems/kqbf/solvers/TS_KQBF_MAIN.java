@@ -1,5 +1,6 @@
 package problems.kqbf.solvers;
 
+import problems.kqbf.KQBF;
 import solutions.Solution;
 
 import java.io.IOException;
@@ -29,7 +30,7 @@ public class TS_KQBF_MAIN {
             for (var tenure : TENURE_LIST)
                 for (boolean firstImproving : new boolean[]{true, false}) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new TS_KQBF(tenure, fileName, firstImproving), fileName);
+                    run_algorithm(new TS_KQBF(tenure, KQBF.shared(fileName), firstImproving), fileName);
                 }
 
         // Probabilistic TS strategy:
@@ -38,7 +39,7 @@ public class TS_KQBF_MAIN {
             for (var tenure : TENURE_LIST)
                 for (boolean firstImproving : new boolean[]{true, false}) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new TS_KQBF_Probabilistic(tenure, fileName, firstImproving), fileName);
+                    run_algorithm(new TS_KQBF_Probabilistic(tenure, KQBF.shared(fileName), firstImproving), fileName);
                 }
 
         // TS with Diversification by Restart:
@@ -47,7 +48,7 @@ public class TS_KQBF_MAIN {
             for (var tenure : TENURE_LIST)
                 for (boolean firstImproving : new boolean[]{true, false}) {
                     var fileName = INSTANCES_DIR + instance;
-                    run_algorithm(new TS_KQBF_Restart_Diversification(tenure, fileName, firstImproving), fileName);
+                    run_algorithm(new TS_KQBF_Restart_Diversification(tenure, KQBF.shared(fileName), firstImproving), fileName);
                 }
     }
 
@@ -1,5 +1,7 @@
 package problems.kqbf.solvers;
 
+import problems.kqbf.KQBF;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -10,6 +12,10 @@ public class TS_KQBF_Probabilistic extends TS_KQBF {
         super(tenure, filename, firstImproving);
     }
 
+    public TS_KQBF_Probabilistic(int tenure, KQBF objFunction, boolean firstImproving) {
+        super(tenure, objFunction, firstImproving);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
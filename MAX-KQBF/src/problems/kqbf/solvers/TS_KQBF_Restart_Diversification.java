@@ -1,5 +1,7 @@
 package problems.kqbf.solvers;
 
+import problems.kqbf.KQBF;
+
 import java.util.*;
 import java.io.IOException;
 import java.util.stream.Collectors;
@@ -46,6 +48,14 @@ public class TS_KQBF_Restart_Diversification extends TS_KQBF {
         RESTART_FREQUENCY = iterations / 5;
     }
 
+    public TS_KQBF_Restart_Diversification(int tenure, KQBF objFunction, boolean stImproving) {
+        super(tenure, objFunction, stImproving);
+        FREQUENCY_MEMORY = new ArrayList<>(this.ObjFunction.getDomainSize());
+        for (int i = 0; i < this.ObjFunction.getDomainSize(); i++)
+            FREQUENCY_MEMORY.add(new Tuple(0, i));
+        RESTART_FREQUENCY = iterations / 5;
+    }
+
     @Override
     public void neighborhoodMove() {
         super.neighborhoodMove();
@@ -66,9 +76,11 @@ public class TS_KQBF_Restart_Diversification extends TS_KQBF {
         cost = Double.POSITIVE_INFINITY;
 
         CL = (ArrayList<Integer>) FREQUENCY_MEMORY.stream().map(t -> t.Value).collect(Collectors.toList());
+        incremental.clear();
         while (CL.size() > 0) {
-            sol.add(CL.remove(0));
-            ObjFunction.evaluate(sol);
+            Integer elem = CL.remove(0);
+            ObjFunction.applyInsertion(elem, incremental.insertionCost(elem), sol);
+            incremental.insert(elem);
             updateCL();
         }
         cost = sol.cost;
@@ -0,0 +1,36 @@
+package problems.qbf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class of the dense matrices, which store every row of the symmetrized
+ * matrix Q = A + A' (see {@link DenseQBFMatrix}), on the heap or off it. They
+ * can be created empty and filled in place, row by row, sparing the
+ * collection of the coefficients by a {@link QBFMatrix.Builder} (see
+ * {@link QBFMatrix.Builder#emptyDense}).
+ */
+public abstract class AbstractDenseQBFMatrix extends QBFMatrix {
+
+    protected AbstractDenseQBFMatrix(int size) {
+        super(size);
+    }
+
+    /**
+     * Sets the coefficients a_{ii}, ..., a_{in} of a matrix created empty for
+     * being filled in place. Once all the rows are set, {@link #complete()}
+     * must be called.
+     *
+     * @param i   the row being set.
+     * @param row the coefficients of the row, from the diagonal on, as the
+     *            remaining content of a little endian buffer. The width of
+     *            each coefficient is the one the matrix was created for (see
+     *            {@link QBFMatrix.Builder#emptyDense}).
+     */
+    abstract void setRow(int i, ByteBuffer row);
+
+    /**
+     * Completes a matrix filled through {@link #setRow}, deriving the lower
+     * triangle of the symmetrized matrix from the upper one.
+     */
+    abstract void complete();
+}
@@ -0,0 +1,424 @@
+package problems.qbf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import problems.kqbf.KQBF;
+
+/**
+ * Binary form of a QBF or KQBF instance. The file is little endian and
+ * organized as follows:
+ * <p>
+ * <ul>
+ * <li>a header of {@value #HEADER_BYTES} bytes: the magic number
+ * {@value #MAGIC}, the version of the format, the dimension n, the width of
+ * each coefficient in bytes, whether the instance has weights (0 or 1), the
+ * layout of the coefficients, the knapsack capacity (a double), the number
+ * of nonzero coefficients (a long), the length and the modification time of
+ * the text instance cached, if any (two longs), and eight reserved
+ * bytes;</li>
+ * <li>the n weights as doubles, if the instance has weights;</li>
+ * <li>the coefficients, each with the given width, in one of two layouts:
+ * {@link #ROWS}, the n rows of the symmetrized matrix Q = A + A' (see
+ * {@link DenseQBFMatrix}), which can be mapped to memory instead of being
+ * read (see {@link MappedQBFMatrix}), or {@link #PACKED}, the upper triangle
+ * of A row by row, which takes half the space and is read like a text
+ * instance.</li>
+ * </ul>
+ * <p>
+ * Besides the binary instances given explicitly, a text instance is cached
+ * in the packed binary form the first time it is read (see
+ * {@link #loadCache} and {@link #saveCache}), so that later runs skip the
+ * parsing.
+ */
+public class BinaryInstance {
+
+    /**
+     * The magic number opening every binary instance, "QBFB" in ASCII.
+     */
+    public static final int MAGIC = 0x42464251;
+
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The size of the header.
+     */
+    public static final int HEADER_BYTES = 64;
+
+    /**
+     * The layout holding the full rows of the symmetrized matrix.
+     */
+    public static final int ROWS = 0;
+
+    /**
+     * The layout holding the upper triangle of the matrix, row by row.
+     */
+    public static final int PACKED = 1;
+
+    /**
+     * Whether text instances are cached in the binary form.
+     */
+    public static boolean cacheEnabled = true;
+
+    /**
+     * Dimension of the domain.
+     */
+    public final int size;
+
+    /**
+     * The knapsack capacity, NaN for instances without weights.
+     */
+    public final double capacity;
+
+    /**
+     * The weights of the elements, null for instances without weights.
+     */
+    public final double[] weights;
+
+    /**
+     * The matrix of coefficients, mapped from the file for the {@link #ROWS}
+     * layout and read for the {@link #PACKED} one.
+     */
+    public final QBFMatrix A;
+
+    /**
+     * The length of the text instance cached, -1 if the instance is not a
+     * cache.
+     */
+    public final long sourceLength;
+
+    /**
+     * The modification time of the text instance cached, in milliseconds, -1
+     * if the instance is not a cache.
+     */
+    public final long sourceModified;
+
+    private BinaryInstance(int size, double capacity, double[] weights, QBFMatrix A, long sourceLength,
+                           long sourceModified) {
+        this.size = size;
+        this.capacity = capacity;
+        this.weights = weights;
+        this.A = A;
+        this.sourceLength = sourceLength;
+        this.sourceModified = sourceModified;
+    }
+
+    /**
+     * Tells whether a file holds a binary instance, by checking its magic
+     * number.
+     *
+     * @param filename Name of the file.
+     * @return true if the file is a binary instance.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static boolean isBinary(String filename) throws IOException {
+        try (FileInputStream in = new FileInputStream(filename)) {
+            byte[] magic = new byte[Integer.BYTES];
+            return in.read(magic) == magic.length
+                    && ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Reads a binary instance.
+     *
+     * @param filename Name of the file holding the instance.
+     * @return the instance read.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static BinaryInstance read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC)
+                throw new IOException(filename + " is not a binary instance");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException(filename + ": unsupported binary instance version " + version);
+            int size = header.getInt(), width = header.getInt();
+            boolean hasWeights = header.getInt() != 0;
+            int layout = header.getInt();
+            double capacity = header.getDouble();
+            long nonZeros = header.getLong();
+            long sourceLength = header.getLong(), sourceModified = header.getLong();
+
+            double[] weights = null;
+            if (hasWeights) {
+                ByteBuffer buffer = ByteBuffer.allocate(size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, buffer);
+                buffer.flip();
+                weights = new double[size];
+                buffer.asDoubleBuffer().get(weights);
+            }
+
+            long position = channel.position();
+            long coefficients = layout == ROWS ? (long) size * size : (long) size * (size + 1) / 2;
+            if (channel.size() < position + coefficients * width)
+                throw new IOException(filename + ": truncated binary instance");
+            QBFMatrix A = layout == ROWS ? MappedQBFMatrix.map(channel, position, size, width)
+                    : readPacked(channel, size, width, nonZeros);
+            return new BinaryInstance(size, capacity, weights, A, sourceLength, sourceModified);
+        }
+    }
+
+    /**
+     * Reads the upper triangle of a matrix stored in the {@link #PACKED}
+     * layout, from the current position of the channel. Dense matrices, on
+     * the heap or off it, are filled in place, the others are collected by a
+     * {@link QBFMatrix.Builder}.
+     */
+    private static QBFMatrix readPacked(FileChannel channel, int size, int width, long nonZeros) throws IOException {
+        boolean dense = QBFMatrix.Builder.isDense(size, nonZeros);
+        AbstractDenseQBFMatrix A = dense ? QBFMatrix.Builder.emptyDense(size, width) : null;
+        QBFMatrix.Builder builder = dense ? null : new QBFMatrix.Builder(size, nonZeros);
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(1 << 20, size * width)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        for (int i = 0; i < size; i++) {
+            int rowBytes = (size - i) * width;
+            if (buffer.remaining() < rowBytes) {
+                buffer.compact();
+                while (buffer.position() < rowBytes)
+                    if (channel.read(buffer) < 0)
+                        throw new IOException("Unexpected end of binary instance");
+                buffer.flip();
+            }
+            ByteBuffer row = buffer.slice().limit(rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(buffer.position() + rowBytes);
+            if (dense) {
+                A.setRow(i, row);
+                continue;
+            }
+            for (int j = i; j < size; j++)
+                builder.add(i, j, MappedQBFMatrix.get(row, width));
+        }
+        if (!dense)
+            return builder.build();
+        A.complete();
+        return A;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new IOException("Unexpected end of binary instance");
+    }
+
+    /**
+     * Writes an instance in the binary form, in the {@link #ROWS} layout.
+     *
+     * @see #write(String, QBFMatrix, double[], double, int)
+     */
+    public static void write(String filename, QBFMatrix A, double[] weights, double capacity) throws IOException {
+        write(filename, A, weights, capacity, ROWS);
+    }
+
+    /**
+     * Writes an instance in the binary form. The coefficients are stored in
+     * the narrowest width able to hold them (see
+     * {@link MappedQBFMatrix#width}).
+     *
+     * @param filename Name of the file to be written.
+     * @param A        the matrix of coefficients.
+     * @param weights  the weights of the elements, or null if there are none.
+     * @param capacity the knapsack capacity, ignored if there are no weights.
+     * @param layout   the layout of the coefficients, {@link #ROWS} or
+     *                 {@link #PACKED}.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static void write(String filename, QBFMatrix A, double[] weights, double capacity, int layout)
+            throws IOException {
+        write(filename, A, weights, capacity, layout, width(A));
+    }
+
+    /**
+     * Gives the narrowest width able to hold the coefficients of a matrix
+     * (see {@link MappedQBFMatrix#width}).
+     */
+    private static int width(QBFMatrix A) {
+        final int n = A.size;
+        double min = 0, max = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = i; j < n; j++) {
+                double q = i == j ? A.diagonal(i) : A.interaction(i, j);
+                min = Math.min(min, q);
+                max = Math.max(max, q);
+            }
+        return MappedQBFMatrix.width(A.isIntegral(), min, max);
+    }
+
+    /**
+     * Writes an instance in the binary form, with coefficients of the given
+     * width. The matrix is gone through a single time, row by row, so that it
+     * can be one whose coefficients are computed on demand.
+     *
+     * @param filename Name of the file to be written.
+     * @param A        the matrix of coefficients.
+     * @param weights  the weights of the elements, or null if there are none.
+     * @param capacity the knapsack capacity, ignored if there are no weights.
+     * @param layout   the layout of the coefficients, {@link #ROWS} or
+     *                 {@link #PACKED}.
+     * @param width    the width of the coefficients, which must fit them.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static void write(String filename, QBFMatrix A, double[] weights, double capacity, int layout,
+                             int width) throws IOException {
+        write(filename, A, weights, capacity, layout, width, null);
+    }
+
+    /**
+     * Writes an instance in the binary form, recording the length and the
+     * modification time of the text instance it caches, if any.
+     */
+    private static void write(String filename, QBFMatrix A, double[] weights, double capacity, int layout,
+                              int width, File source) throws IOException {
+        final int n = A.size;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The number of nonzero coefficients is filled in at the end.
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(width);
+            header.putInt(weights != null ? 1 : 0).putInt(layout);
+            header.putDouble(weights != null ? capacity : Double.NaN);
+            int nonZerosOffset = header.position();
+            header.putLong(0);
+            header.putLong(source != null ? source.length() : -1);
+            header.putLong(source != null ? source.lastModified() : -1);
+            header.putLong(0);
+            writeFully(channel, header);
+
+            if (weights != null) {
+                ByteBuffer buffer = ByteBuffer.allocate(n * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (double w : weights)
+                    buffer.putDouble(w);
+                writeFully(channel, buffer);
+            }
+
+            long nonZeros = 0;
+            ByteBuffer row = ByteBuffer.allocate(n * width).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < n; i++) {
+                row.clear();
+                for (int j = layout == ROWS ? 0 : i; j < n; j++) {
+                    double q = i == j ? A.diagonal(i) : A.interaction(i, j);
+                    if (j >= i && q != 0)
+                        nonZeros++;
+                    MappedQBFMatrix.put(row, width, q);
+                }
+                writeFully(channel, row);
+            }
+
+            ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(nonZeros);
+            count.flip();
+            channel.write(count, nonZerosOffset);
+        }
+    }
+
+    /**
+     * Writes the content of a buffer, from its start to its position.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Gives the name of the file caching a text instance.
+     *
+     * @param filename Name of the text instance.
+     * @return the name of the cache file.
+     */
+    public static String cacheName(String filename) {
+        return filename + ".bin";
+    }
+
+    /**
+     * Reads the cached binary form of a text instance, if there is one that
+     * is up to date and of the expected kind. The cache is up to date if the
+     * length and the modification time of the text instance are exactly the
+     * ones recorded when it was written. Unlike a cache merely newer than the
+     * text, this notices a text replaced by an older copy, or rewritten with
+     * another length within the granularity of the modification times.
+     *
+     * @param filename Name of the text instance.
+     * @param weighted whether the instance is expected to have weights.
+     * @return the cached instance, or null if it must be read from the text.
+     */
+    public static BinaryInstance loadCache(String filename, boolean weighted) {
+        File text = new File(filename), cache = new File(cacheName(filename));
+        if (!cacheEnabled || !cache.isFile())
+            return null;
+        try {
+            BinaryInstance instance = read(cache.getPath());
+            return instance.sourceLength == text.length() && instance.sourceModified == text.lastModified()
+                    && (instance.weights != null) == weighted ? instance : null;
+        } catch (IOException e) {
+            return null; // a damaged cache is simply rewritten
+        }
+    }
+
+    /**
+     * Caches a text instance in the {@link #PACKED} binary form. The file is
+     * written under a temporary name and then renamed, so that concurrent
+     * runs never see it partially written. Since the cache only speeds up
+     * later runs, failing to write it is not an error.
+     *
+     * @param filename Name of the text instance.
+     * @param A        the matrix of coefficients.
+     * @param weights  the weights of the elements, or null if there are none.
+     * @param capacity the knapsack capacity, ignored if there are no weights.
+     */
+    public static void saveCache(String filename, QBFMatrix A, double[] weights, double capacity) {
+        if (!cacheEnabled)
+            return;
+        Path cache = Paths.get(cacheName(filename)).toAbsolutePath();
+        Path temporary = Paths.get(cache + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            write(temporary.toString(), A, weights, capacity, PACKED, width(A), new File(filename));
+            try {
+                Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Converts a text instance into the binary form, in the {@link #ROWS}
+     * layout.
+     *
+     * @param args the text instance, the binary file to be written and, for
+     *             KQBF instances, the word "kqbf".
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BinaryInstance <text instance> <binary instance> [kqbf]");
+            return;
+        }
+        if (args.length > 2 && args[2].equals("kqbf")) {
+            KQBF kqbf = new KQBF(args[0]);
+            write(args[1], kqbf.A, kqbf.W, kqbf.W_max);
+        } else
+            write(args[1], new QBF(args[0]).A, null, Double.NaN);
+    }
+}
@@ -0,0 +1,149 @@
+package problems.qbf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Dense representation of the matrix of coefficients of a QBF. Instead of the
+ * upper triangular matrix A read from the instance, it stores the symmetric
+ * matrix Q = A + A' (whose diagonal is kept as the one of A), flattened in
+ * row-major order, i.e., q_{ij} = a_{ij} + a_{ji} is stored at
+ * {@code Q[i * size + j]}. That way the interactions of an element with all
+ * the others are a single contiguous row, instead of a row of A plus a column
+ * of A that is mostly zeros.
+ */
+public class DenseQBFMatrix extends AbstractDenseQBFMatrix {
+
+    /**
+     * The symmetrized coefficients in row-major order.
+     */
+    protected final double[] Q;
+
+    /**
+     * Whether all the coefficients are integers.
+     */
+    private boolean integral;
+
+    /**
+     * Creates a zero matrix, to be filled through {@link #setRow} and
+     * {@link #complete}.
+     */
+    DenseQBFMatrix(int size) {
+        super(size);
+        Q = new double[size * size];
+    }
+
+    /**
+     * Creates a dense matrix from the upper triangle given in compressed
+     * sparse row format (see {@link QBFMatrix.Builder}).
+     */
+    DenseQBFMatrix(int size, int[] rowStart, int[] columns, double[] values) {
+        this(size);
+        for (int i = 0; i < size; i++)
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                Q[i * size + columns[k]] = values[k];
+        complete();
+    }
+
+    /**
+     * {@inheritDoc} Coefficients stored with other widths are converted to
+     * doubles.
+     */
+    @Override
+    void setRow(int i, ByteBuffer row) {
+        final int n = size;
+        final int width = row.remaining() / (n - i);
+        if (width == Double.BYTES) {
+            row.asDoubleBuffer().get(Q, i * n + i, n - i);
+            return;
+        }
+        for (int j = i; j < n; j++)
+            Q[i * n + j] = width == Byte.BYTES ? row.get() : width == Short.BYTES ? row.getShort() : row.getInt();
+    }
+
+    /**
+     * {@inheritDoc} Each off-diagonal coefficient is mirrored to the lower
+     * triangle, going through the matrix in square blocks so that both the
+     * rows read and the columns written stay in cache.
+     */
+    @Override
+    void complete() {
+        final int n = size;
+        boolean integral = true;
+        for (int bi = 0; bi < n; bi += BLOCK)
+            for (int bj = bi; bj < n; bj += BLOCK)
+                for (int i = bi; i < Math.min(bi + BLOCK, n); i++) {
+                    if (bj == bi)
+                        integral &= Q[i * n + i] == Math.rint(Q[i * n + i]);
+                    for (int j = Math.max(bj, i + 1); j < Math.min(bj + BLOCK, n); j++) {
+                        Q[j * n + i] = Q[i * n + j];
+                        integral &= Q[i * n + j] == Math.rint(Q[i * n + j]);
+                    }
+                }
+        this.integral = integral;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i > j)
+            return 0.0; // the lower triangle of A is zero
+        return Q[i * size + j];
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return Q[i * size + i];
+    }
+
+    @Override
+    public double interaction(int i, int j) {
+        return Q[i * size + j];
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    @Override
+    public long nonZeros() {
+        long count = 0;
+        for (int i = 0; i < size; i++)
+            for (int j = i; j < size; j++)
+                if (Q[i * size + j] != 0)
+                    count++;
+        return count;
+    }
+
+    @Override
+    public double evaluate(double[] x) {
+        final int n = size;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (x[i] == 0)
+                continue; // the whole row is multiplied by zero
+            double aux = Q[i * n + i];
+            for (int j = i + 1, row = i * n; j < n; j++)
+                aux += x[j] * Q[row + j];
+            sum += aux * x[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double contribution(int i, double[] x) {
+        final int n = size;
+        double sum = 0.0;
+        for (int j = 0, row = i * n; j < n; j++)
+            if (i != j)
+                sum += x[j] * Q[row + j];
+        return sum + Q[i * n + i];
+    }
+
+    @Override
+    public void addInteractions(int j, double s, double[] g) {
+        final int n = size;
+        for (int i = 0, row = j * n; i < n; i++)
+            if (i != j)
+                g[i] += s * Q[row + i];
+    }
+}
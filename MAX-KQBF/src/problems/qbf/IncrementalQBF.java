@@ -0,0 +1,163 @@
+package problems.qbf;
+
+import java.util.Arrays;
+
+/**
+ * Incremental evaluator for a {@link QBF}. It is bound to a single current
+ * solution and keeps, for every element i of the domain, its contribution
+ * g_i = a_{ii} + \sum_{j \in S, j != i}{(a_{ij} + a_{ji})} with respect to
+ * the set S of elements in that solution. Keeping this vector up to date costs
+ * O(n) whenever an element enters or leaves the solution, after which the
+ * insertion and removal costs are obtained in O(1) and the exchange costs in
+ * O(1) plus one coefficient lookup.
+ * <p>
+ * The costs given by this class follow the same direction as the ones given
+ * by the evaluator it was created for (see {@link QBF#getSign()}).
+ */
+public class IncrementalQBF {
+
+    /**
+     * The QBF being incrementally evaluated.
+     */
+    public final QBF qbf;
+
+    /**
+     * The sign of the costs reported by {@link #qbf}.
+     */
+    protected final double sign;
+
+    /**
+     * Whether each element of the domain belongs to the current solution.
+     */
+    protected final boolean[] selected;
+
+    /**
+     * The contribution g_i of each element to the QBF, given the current
+     * solution.
+     */
+    protected final double[] contributions;
+
+    /**
+     * Constructor for the IncrementalQBF class. It starts bound to an empty
+     * solution.
+     *
+     * @param qbf The QBF being incrementally evaluated.
+     */
+    public IncrementalQBF(QBF qbf) {
+        this.qbf = qbf;
+        this.sign = qbf.getSign();
+        this.selected = new boolean[qbf.size];
+        this.contributions = new double[qbf.size];
+        clear();
+    }
+
+    /**
+     * Binds this evaluator to an empty solution.
+     */
+    public void clear() {
+        Arrays.fill(selected, false);
+        for (int i = 0; i < qbf.size; i++)
+            contributions[i] = qbf.A.diagonal(i);
+    }
+
+    /**
+     * Binds this evaluator to the given solution, recomputing all the
+     * contributions from scratch in O(n.|S|).
+     *
+     * @param sol the elements of the new current solution.
+     */
+    public void reset(Iterable<Integer> sol) {
+        clear();
+        for (Integer elem : sol)
+            insert(elem);
+    }
+
+    /**
+     * Verifies if an element belongs to the current solution.
+     *
+     * @param i index of the element.
+     * @return true if the element is in the current solution.
+     */
+    public boolean contains(int i) {
+        return selected[i];
+    }
+
+    /**
+     * Gives the contribution g_i of an element to the QBF (not affected by
+     * the sign of the evaluator), disregarding whether it belongs to the
+     * current solution.
+     *
+     * @param i index of the element.
+     * @return the contribution of the element.
+     */
+    public double contribution(int i) {
+        return contributions[i];
+    }
+
+    /**
+     * Determines the cost variation from inserting an element into the current
+     * solution.
+     *
+     * @param i index of the element being inserted.
+     * @return the cost variation resulting from the insertion.
+     */
+    public double insertionCost(int i) {
+        return selected[i] ? 0.0 : sign * contributions[i];
+    }
+
+    /**
+     * Determines the cost variation from removing an element from the current
+     * solution.
+     *
+     * @param i index of the element being removed.
+     * @return the cost variation resulting from the removal.
+     */
+    public double removalCost(int i) {
+        return selected[i] ? -sign * contributions[i] : 0.0;
+    }
+
+    /**
+     * Determines the cost variation from exchanging two elements, one
+     * entering the current solution and the other leaving it.
+     *
+     * @param in  index of the element entering the solution.
+     * @param out index of the element leaving the solution.
+     * @return the cost variation resulting from the exchange.
+     */
+    public double exchangeCost(int in, int out) {
+        if (in == out)
+            return 0.0;
+        if (selected[in])
+            return removalCost(out);
+        if (!selected[out])
+            return insertionCost(in);
+
+        return sign * (contributions[in] - contributions[out] - qbf.A.interaction(in, out));
+    }
+
+    /**
+     * Inserts an element into the current solution, updating the
+     * contributions of all the other elements in O(n).
+     *
+     * @param i index of the element being inserted.
+     */
+    public void insert(int i) {
+        if (selected[i])
+            return;
+        selected[i] = true;
+        qbf.addInteractions(i, 1.0, contributions);
+    }
+
+    /**
+     * Removes an element from the current solution, updating the
+     * contributions of all the other elements in O(n).
+     *
+     * @param i index of the element being removed.
+     */
+    public void remove(int i) {
+        if (!selected[i])
+            return;
+        selected[i] = false;
+        qbf.addInteractions(i, -1.0, contributions);
+    }
+}
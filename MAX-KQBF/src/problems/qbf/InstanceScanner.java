@@ -0,0 +1,155 @@
+package problems.qbf;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Reader of the numbers of a text instance, working directly on the bytes of
+ * the file through a large buffer. Integers, which make up the shipped
+ * instances, are parsed without creating any object; other numbers fall back
+ * to {@link Double#parseDouble}.
+ */
+public class InstanceScanner implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileInputStream in;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position = 0, limit = 0;
+
+    /**
+     * the offset in the file of the start of the buffer
+     */
+    private long bufferOffset = 0;
+
+    private final StringBuilder token = new StringBuilder();
+
+    /**
+     * Constructor for the InstanceScanner class.
+     *
+     * @param filename Name of the file to be read.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public InstanceScanner(String filename) throws IOException {
+        this.in = new FileInputStream(filename);
+    }
+
+    /**
+     * Gives the next byte of the file, or -1 at its end.
+     */
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position++];
+    }
+
+    /**
+     * Refills the buffer once all of its content was consumed.
+     *
+     * @return false at the end of the file.
+     */
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        limit = Math.max(0, in.read(buffer, 0, buffer.length));
+        position = 0;
+        return limit > 0;
+    }
+
+    /**
+     * Reads the next number of the file. Any character up to the space is
+     * taken as a separator.
+     *
+     * @return the number read.
+     * @throws IOException Necessary for I/O operations, also thrown at the end
+     *                     of the file and on malformed numbers.
+     */
+    public double nextDouble() throws IOException {
+        final byte[] b = buffer;
+        int p = position;
+        while (true) {
+            if (p == limit) {
+                if (!fill())
+                    throw new EOFException("Unexpected end of instance");
+                p = 0;
+            } else if (b[p] <= ' ')
+                p++;
+            else
+                break;
+        }
+
+        // Fast path: an integer followed by a separator within the buffer.
+        final int start = p, l = limit;
+        boolean negative = b[p] == '-';
+        if (negative || b[p] == '+')
+            p++;
+        long value = 0;
+        int digits = 0;
+        while (p < l && b[p] >= '0' && b[p] <= '9' && digits < 18) {
+            value = 10 * value + (b[p++] - '0');
+            digits++;
+        }
+        if (digits > 0 && p < l && b[p] <= ' ') {
+            position = p;
+            return negative ? -value : value;
+        }
+
+        // Otherwise collects the token, possibly across refills.
+        position = start;
+        token.setLength(0);
+        int c = read();
+        while (c > ' ') {
+            token.append((char) c);
+            c = read();
+        }
+        try {
+            return Double.parseDouble(token.toString());
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed number in instance: " + token, e);
+        }
+    }
+
+    /**
+     * Reads the next number of the file, which must be an integer.
+     *
+     * @return the number read.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public int nextInt() throws IOException {
+        double value = nextDouble();
+        if (value != (int) value)
+            throw new IOException("Expected an integer in instance, found " + value);
+        return (int) value;
+    }
+
+    /**
+     * Gives the offset in the file of the next byte to be read, to return to
+     * it later through {@link #seek}.
+     *
+     * @return the offset of the next byte.
+     */
+    public long offset() {
+        return bufferOffset + position;
+    }
+
+    /**
+     * Moves to an offset of the file, given by {@link #offset}, from which
+     * the next numbers are read.
+     *
+     * @param offset the offset of the next byte to be read.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public void seek(long offset) throws IOException {
+        in.getChannel().position(offset);
+        bufferOffset = offset;
+        position = limit = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,41 @@
+package problems.qbf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Symmetrized dense matrix (see {@link DenseQBFMatrix}) of integer
+ * coefficients that fit in a {@code int}. The kernels accumulate in
+ * {@code long}, hence their results are exact.
+ */
+public class IntDenseQBFMatrix extends IntegerDenseQBFMatrix {
+
+    /**
+     * The symmetrized coefficients in row-major order.
+     */
+    protected final int[] Q;
+
+    IntDenseQBFMatrix(int size) {
+        super(size);
+        Q = new int[size * size];
+    }
+
+    IntDenseQBFMatrix(int size, int[] rowStart, int[] columns, double[] values) {
+        this(size);
+        fill(rowStart, columns, values);
+    }
+
+    @Override
+    protected int q(int k) {
+        return Q[k];
+    }
+
+    @Override
+    protected void set(int k, int value) {
+        Q[k] = value;
+    }
+
+    @Override
+    void setRow(int i, ByteBuffer row) {
+        row.asIntBuffer().get(Q, i * size + i, size - i);
+    }
+}
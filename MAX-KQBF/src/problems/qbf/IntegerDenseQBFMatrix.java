@@ -0,0 +1,141 @@
+package problems.qbf;
+
+/**
+ * Base class of the dense matrices whose coefficients are all integers. The
+ * symmetrized coefficients (see {@link DenseQBFMatrix}) are kept in the
+ * narrowest primitive integer type that fits them, which takes from an eighth
+ * to a half of the memory of a matrix of doubles, and the kernels accumulate
+ * in {@code long}. Every cost derived from these matrices is therefore an
+ * integer, given exactly by the doubles returned.
+ * <p>
+ * The kernels are shared by all the types, each subclass only giving access
+ * to its array of coefficients, in row-major order.
+ */
+public abstract class IntegerDenseQBFMatrix extends AbstractDenseQBFMatrix {
+
+    protected IntegerDenseQBFMatrix(int size) {
+        super(size);
+    }
+
+    /**
+     * Gives the k-th symmetrized coefficient in row-major order.
+     *
+     * @param k the position of the coefficient.
+     * @return the coefficient.
+     */
+    protected abstract int q(int k);
+
+    /**
+     * Sets the k-th symmetrized coefficient in row-major order.
+     *
+     * @param k     the position of the coefficient.
+     * @param value the coefficient, which must fit the type of the matrix.
+     */
+    protected abstract void set(int k, int value);
+
+    /**
+     * Fills the upper triangle from its coefficients given in compressed
+     * sparse row format (see {@link QBFMatrix.Builder}), then mirrors it.
+     */
+    protected void fill(int[] rowStart, int[] columns, double[] values) {
+        for (int i = 0; i < size; i++)
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                set(i * size + columns[k], (int) values[k]);
+        complete();
+    }
+
+    @Override
+    void complete() {
+        final int n = size;
+        for (int bi = 0; bi < n; bi += BLOCK)
+            for (int bj = bi; bj < n; bj += BLOCK)
+                for (int i = bi; i < Math.min(bi + BLOCK, n); i++)
+                    for (int j = Math.max(bj, i + 1); j < Math.min(bj + BLOCK, n); j++)
+                        set(j * n + i, q(i * n + j));
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i > j)
+            return 0.0; // the lower triangle of A is zero
+        return q(i * size + j);
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return q(i * size + i);
+    }
+
+    @Override
+    public double interaction(int i, int j) {
+        return q(i * size + j);
+    }
+
+    @Override
+    public long nonZeros() {
+        long count = 0;
+        for (int i = 0; i < size; i++)
+            for (int j = i; j < size; j++)
+                if (q(i * size + j) != 0)
+                    count++;
+        return count;
+    }
+
+    @Override
+    public double evaluate(double[] x) {
+        final int n = size;
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (x[i] == 0)
+                continue; // the whole row is multiplied by zero
+            final int row = i * n;
+            long aux = q(row + i);
+            for (int j = i + 1; j < n; j++)
+                aux += q(row + j) * (long) x[j];
+            sum += aux * (long) x[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double contribution(int i, double[] x) {
+        final int n = size;
+        final int row = i * n;
+        long sum = 0;
+        for (int j = 0; j < n; j++)
+            sum += q(row + j) * (long) x[j];
+        return sum + q(row + i) * (1 - (long) x[i]);
+    }
+
+    @Override
+    public void addInteractions(int j, double s, double[] g) {
+        final int n = size;
+        final int row = j * n;
+        for (int i = 0; i < n; i++)
+            g[i] += s * q(row + i);
+        g[j] -= s * q(row + j); // undoes the diagonal
+    }
+
+    /**
+     * Creates the integer dense matrix of the narrowest type that fits the
+     * given range of coefficients, from the upper triangle given in compressed
+     * sparse row format (see {@link QBFMatrix.Builder}).
+     *
+     * @return the created matrix, or null if the range does not fit an int.
+     */
+    static IntegerDenseQBFMatrix create(int size, int[] rowStart, int[] columns, double[] values,
+                                        double min, double max) {
+        if (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE)
+            return new ByteDenseQBFMatrix(size, rowStart, columns, values);
+        if (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE)
+            return new ShortDenseQBFMatrix(size, rowStart, columns, values);
+        if (min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE)
+            return new IntDenseQBFMatrix(size, rowStart, columns, values);
+        return null;
+    }
+}
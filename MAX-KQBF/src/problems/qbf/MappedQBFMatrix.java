@@ -0,0 +1,364 @@
+package problems.qbf;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Off-heap representation of the symmetrized matrix of coefficients (see
+ * {@link DenseQBFMatrix}), for instances too large for the heap. The rows are
+ * kept in native memory, outside the reach of the garbage collector, either
+ * allocated directly or mapped read-only from a binary instance file (see
+ * {@link BinaryInstance}). In the latter case the coefficients are only
+ * brought to memory when first used, and the solvers running on the same
+ * machine over the same file share a single physical copy through the page
+ * cache.
+ * <p>
+ * Since a buffer is limited to 2GB, the rows are split among several chunks,
+ * each holding as many whole rows as fit. The coefficients are stored little
+ * endian with the width given by {@link #width}, integers taking 1, 2 or 4
+ * bytes and doubles 8, so that integer instances keep the compact and exact
+ * arithmetic of {@link IntegerDenseQBFMatrix}. Allocated matrices count
+ * against the limit of direct memory of the JVM (see the option
+ * -XX:MaxDirectMemorySize), mapped ones do not.
+ */
+public class MappedQBFMatrix extends AbstractDenseQBFMatrix {
+
+    /**
+     * The number of bytes of each coefficient.
+     */
+    public final int width;
+
+    /**
+     * The number of rows in each chunk.
+     */
+    protected final int rowsPerChunk;
+
+    /**
+     * The chunks of rows, viewed as buffers of the type given by
+     * {@link #width}.
+     */
+    protected final Buffer[] chunks;
+
+    private MappedQBFMatrix(int size, int width, ByteBuffer[] chunks) {
+        super(size);
+        this.width = width;
+        this.rowsPerChunk = rowsPerChunk(size, width);
+        this.chunks = new Buffer[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            ByteBuffer chunk = chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+            switch (width) {
+                case Byte.BYTES:
+                    this.chunks[c] = chunk;
+                    break;
+                case Short.BYTES:
+                    this.chunks[c] = chunk.asShortBuffer();
+                    break;
+                case Integer.BYTES:
+                    this.chunks[c] = chunk.asIntBuffer();
+                    break;
+                default:
+                    this.chunks[c] = chunk.asDoubleBuffer();
+            }
+        }
+    }
+
+    /**
+     * Gives the width, in bytes, of the narrowest type able to store the
+     * given coefficients: 1, 2 or 4 for integers fitting a byte, a short or
+     * an int, and 8 for anything else, stored as doubles.
+     *
+     * @param integral whether all the coefficients are integers.
+     * @param min      the smallest coefficient.
+     * @param max      the largest coefficient.
+     * @return the width of the coefficients.
+     */
+    public static int width(boolean integral, double min, double max) {
+        if (integral && min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE)
+            return Byte.BYTES;
+        if (integral && min >= Short.MIN_VALUE && max <= Short.MAX_VALUE)
+            return Short.BYTES;
+        if (integral && min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE)
+            return Integer.BYTES;
+        return Double.BYTES;
+    }
+
+    /**
+     * Gives how many whole rows of a matrix fit in a single buffer.
+     */
+    static int rowsPerChunk(int size, int width) {
+        return (int) Math.max(1, Math.min(size, (Integer.MAX_VALUE - 8) / ((long) size * width)));
+    }
+
+    /**
+     * Allocates a zero matrix in direct memory, to be filled through
+     * {@link #setRow} and {@link #complete}.
+     *
+     * @param size  the dimension of the matrix.
+     * @param width the number of bytes of each coefficient.
+     * @return the allocated matrix.
+     */
+    static MappedQBFMatrix allocate(int size, int width) {
+        int rows = rowsPerChunk(size, width);
+        ByteBuffer[] chunks = new ByteBuffer[(size + rows - 1) / rows];
+        for (int c = 0; c < chunks.length; c++)
+            chunks[c] = ByteBuffer.allocateDirect(Math.min(rows, size - c * rows) * size * width);
+        return new MappedQBFMatrix(size, width, chunks);
+    }
+
+    /**
+     * Allocates a matrix in direct memory, from the upper triangle given in
+     * compressed sparse row format (see {@link QBFMatrix.Builder}).
+     */
+    static MappedQBFMatrix allocate(int size, int[] rowStart, int[] columns, double[] values, int width) {
+        MappedQBFMatrix matrix = allocate(size, width);
+        for (int i = 0; i < size; i++)
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                matrix.put(i, columns[k], values[k]);
+        matrix.complete();
+        return matrix;
+    }
+
+    /**
+     * Maps read-only a matrix whose rows are stored contiguously in a file,
+     * starting at the given position.
+     *
+     * @param channel  the file holding the matrix.
+     * @param position the position of the first row in the file.
+     * @param size     the dimension of the matrix.
+     * @param width    the number of bytes of each coefficient.
+     * @return the mapped matrix.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static MappedQBFMatrix map(FileChannel channel, long position, int size, int width) throws IOException {
+        int rows = rowsPerChunk(size, width);
+        long rowBytes = (long) size * width;
+        ByteBuffer[] chunks = new ByteBuffer[(size + rows - 1) / rows];
+        for (int c = 0; c < chunks.length; c++) {
+            long offset = position + (long) c * rows * rowBytes;
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(rows, size - c * rows) * rowBytes);
+        }
+        return new MappedQBFMatrix(size, width, chunks);
+    }
+
+    private void put(int i, int j, double value) {
+        Buffer chunk = chunks[i / rowsPerChunk];
+        int k = (i % rowsPerChunk) * size + j;
+        switch (width) {
+            case Byte.BYTES:
+                ((ByteBuffer) chunk).put(k, (byte) value);
+                break;
+            case Short.BYTES:
+                ((ShortBuffer) chunk).put(k, (short) value);
+                break;
+            case Integer.BYTES:
+                ((IntBuffer) chunk).put(k, (int) value);
+                break;
+            default:
+                ((DoubleBuffer) chunk).put(k, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc} Coefficients stored with another width are converted to
+     * the one of the matrix.
+     */
+    @Override
+    void setRow(int i, ByteBuffer row) {
+        final int n = size;
+        final int rowWidth = row.remaining() / (n - i);
+        Buffer chunk = chunks[i / rowsPerChunk];
+        int k = (i % rowsPerChunk) * n + i;
+        if (rowWidth != width) {
+            for (int j = i; j < n; j++)
+                put(i, j, get(row, rowWidth));
+            return;
+        }
+        switch (width) {
+            case Byte.BYTES:
+                ((ByteBuffer) chunk).duplicate().position(k).put(row);
+                break;
+            case Short.BYTES:
+                ((ShortBuffer) chunk).duplicate().position(k).put(row.asShortBuffer());
+                break;
+            case Integer.BYTES:
+                ((IntBuffer) chunk).duplicate().position(k).put(row.asIntBuffer());
+                break;
+            default:
+                ((DoubleBuffer) chunk).duplicate().position(k).put(row.asDoubleBuffer());
+        }
+    }
+
+    /**
+     * {@inheritDoc} Each off-diagonal coefficient is mirrored to the lower
+     * triangle, going through the matrix in square blocks.
+     */
+    @Override
+    void complete() {
+        final int n = size;
+        for (int bi = 0; bi < n; bi += BLOCK)
+            for (int bj = bi; bj < n; bj += BLOCK)
+                for (int i = bi; i < Math.min(bi + BLOCK, n); i++)
+                    for (int j = Math.max(bj, i + 1); j < Math.min(bj + BLOCK, n); j++)
+                        put(j, i, interaction(i, j));
+    }
+
+    /**
+     * Reads the next coefficient of a little endian buffer holding them with
+     * the given width.
+     */
+    static double get(ByteBuffer buffer, int width) {
+        switch (width) {
+            case Byte.BYTES:
+                return buffer.get();
+            case Short.BYTES:
+                return buffer.getShort();
+            case Integer.BYTES:
+                return buffer.getInt();
+            default:
+                return buffer.getDouble();
+        }
+    }
+
+    /**
+     * Writes a coefficient at the position of a little endian buffer, with
+     * the given width, which must fit it.
+     */
+    static void put(ByteBuffer buffer, int width, double value) {
+        switch (width) {
+            case Byte.BYTES:
+                buffer.put((byte) value);
+                break;
+            case Short.BYTES:
+                buffer.putShort((short) value);
+                break;
+            case Integer.BYTES:
+                buffer.putInt((int) value);
+                break;
+            default:
+                buffer.putDouble(value);
+        }
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i > j)
+            return 0.0; // the lower triangle of A is zero
+        return interaction(i, j);
+    }
+
+    @Override
+    public double interaction(int i, int j) {
+        Buffer chunk = chunks[i / rowsPerChunk];
+        int k = (i % rowsPerChunk) * size + j;
+        switch (width) {
+            case Byte.BYTES:
+                return ((ByteBuffer) chunk).get(k);
+            case Short.BYTES:
+                return ((ShortBuffer) chunk).get(k);
+            case Integer.BYTES:
+                return ((IntBuffer) chunk).get(k);
+            default:
+                return ((DoubleBuffer) chunk).get(k);
+        }
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return width < Double.BYTES;
+    }
+
+    @Override
+    public long nonZeros() {
+        long count = 0;
+        for (int i = 0; i < size; i++)
+            for (int j = i; j < size; j++)
+                if (interaction(i, j) != 0)
+                    count++;
+        return count;
+    }
+
+    @Override
+    public double evaluate(double[] x) {
+        double sum = 0;
+        for (int i = 0; i < size; i++)
+            if (x[i] != 0)
+                sum += x[i] * (interaction(i, i) + rowDot(i, x, i + 1));
+        return sum;
+    }
+
+    @Override
+    public double contribution(int i, double[] x) {
+        double qii = interaction(i, i);
+        return qii + rowDot(i, x, 0) - x[i] * qii;
+    }
+
+    @Override
+    public void addInteractions(int j, double s, double[] g) {
+        final int n = size;
+        final int offset = (j % rowsPerChunk) * n;
+        Buffer chunk = chunks[j / rowsPerChunk];
+        switch (width) {
+            case Byte.BYTES:
+                ByteBuffer bytes = (ByteBuffer) chunk;
+                for (int i = 0; i < n; i++)
+                    g[i] += s * bytes.get(offset + i);
+                break;
+            case Short.BYTES:
+                ShortBuffer shorts = (ShortBuffer) chunk;
+                for (int i = 0; i < n; i++)
+                    g[i] += s * shorts.get(offset + i);
+                break;
+            case Integer.BYTES:
+                IntBuffer ints = (IntBuffer) chunk;
+                for (int i = 0; i < n; i++)
+                    g[i] += s * ints.get(offset + i);
+                break;
+            default:
+                DoubleBuffer doubles = (DoubleBuffer) chunk;
+                for (int i = 0; i < n; i++)
+                    g[i] += s * doubles.get(offset + i);
+        }
+        g[j] -= s * interaction(j, j); // undoes the diagonal
+    }
+
+    /**
+     * Computes the dot-product between x[from..size) and the same range of
+     * row i. Integer coefficients are accumulated in {@code long}.
+     */
+    protected double rowDot(int i, double[] x, int from) {
+        final int n = size;
+        final int offset = (i % rowsPerChunk) * n;
+        Buffer chunk = chunks[i / rowsPerChunk];
+        long exact = 0;
+        switch (width) {
+            case Byte.BYTES:
+                ByteBuffer bytes = (ByteBuffer) chunk;
+                for (int j = from; j < n; j++)
+                    exact += bytes.get(offset + j) * (long) x[j];
+                return exact;
+            case Short.BYTES:
+                ShortBuffer shorts = (ShortBuffer) chunk;
+                for (int j = from; j < n; j++)
+                    exact += shorts.get(offset + j) * (long) x[j];
+                return exact;
+            case Integer.BYTES:
+                IntBuffer ints = (IntBuffer) chunk;
+                for (int j = from; j < n; j++)
+                    exact += ints.get(offset + j) * (long) x[j];
+                return exact;
+            default:
+                DoubleBuffer doubles = (DoubleBuffer) chunk;
+                double sum = 0;
+                for (int j = from; j < n; j++)
+                    sum += doubles.get(offset + j) * x[j];
+                return sum;
+        }
+    }
+}
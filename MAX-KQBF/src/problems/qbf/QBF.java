@@ -1,13 +1,13 @@
 package problems.qbf;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StreamTokenizer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.List;
 
 import problems.Evaluator;
+import solutions.BinarySolution;
 import solutions.Solution;
 
 /**
@@ -31,14 +31,38 @@ public class QBF implements Evaluator<Integer> {
     public final Integer size;
 
     /**
-     * The array of numbers representing the domain.
+     * The array of numbers representing the domain. Each thread works on its
+     * own array, so that a single QBF (whose coefficients are never modified
+     * after being read) can be shared by solvers running concurrently.
      */
-    public final Double[] variables;
+    private final ThreadLocal<double[]> variables;
 
     /**
-     * The matrix A of coefficients for the QBF f(x) = x'.A.x
+     * The contributions of all the elements to the current solution, computed
+     * by the batch evaluations. As the variables, it is kept per thread.
      */
-    public Double[][] A;
+    private final ThreadLocal<double[]> contributions;
+
+    /**
+     * The elements of the solution being evaluated, in increasing order, for
+     * the evaluations over the elements only. As the variables, it is kept per
+     * thread.
+     */
+    private final ThreadLocal<int[]> elements;
+
+    /**
+     * The fraction of the domain up to which the solutions are evaluated over
+     * their elements only, in O(|S|^2), instead of through the domain
+     * variables, in O(n.|S|) (see {@link QBFMatrix#evaluate(int[], int)}).
+     */
+    public static double sparseEvaluationRatio = 0.25;
+
+    /**
+     * The matrix A of coefficients for the QBF f(x) = x'.A.x, stored either
+     * densely or sparsely according to its density (see {@link QBFMatrix}).
+     * It is read-only once the input is read.
+     */
+    public QBFMatrix A;
 
     /**
      * The constructor for QuadracticBinaryFunction class. The filename of the
@@ -50,7 +74,19 @@ public class QBF implements Evaluator<Integer> {
      */
     public QBF(String filename) throws IOException {
         size = readInput(filename);
-        variables = allocateVariables();
+        variables = ThreadLocal.withInitial(this::allocateVariables);
+        contributions = ThreadLocal.withInitial(this::allocateVariables);
+        elements = ThreadLocal.withInitial(() -> new int[size]);
+    }
+
+    /**
+     * Gives the array of domain variables of the calling thread, which is the
+     * one used by the evaluation methods invoked from that thread.
+     *
+     * @return the domain variables of the calling thread.
+     */
+    public double[] getVariables() {
+        return variables.get();
     }
 
     /**
@@ -60,12 +96,33 @@ public class QBF implements Evaluator<Integer> {
      * @param sol the solution which will be evaluated.
      */
     public void setVariables(Solution<Integer> sol) {
-        resetVariables();
+        double[] variables = getVariables();
+        Arrays.fill(variables, 0.0);
         if (!sol.isEmpty())
             for (Integer elem : sol)
                 variables[elem] = 1.0;
     }
 
+    /**
+     * Gives the direction in which the costs reported by this evaluator relate
+     * to the QBF f(x) = x'.A.x, i.e., 1 when the costs are the function values
+     * themselves and -1 when they are negated (see {@link QBF_Inverse}).
+     *
+     * @return the sign applied to the QBF values.
+     */
+    public double getSign() {
+        return 1.0;
+    }
+
+    /**
+     * {@inheritDoc} In the case of a QBF, the costs are exact when all the
+     * coefficients are integers (see {@link QBFMatrix#isIntegral()}).
+     */
+    @Override
+    public boolean isExact() {
+        return A.isIntegral();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -82,15 +139,42 @@ public class QBF implements Evaluator<Integer> {
      * function when at most two variables are modified is given by methods
      * {@link #evaluateInsertionQBF(int)}, {@link #evaluateRemovalQBF(int)} and
      * {@link #evaluateExchangeQBF(int, int)}.
+     * <p>
+     * Solutions much smaller than the domain (see
+     * {@link #sparseEvaluationRatio}) are evaluated over their elements only,
+     * in which case the domain variables are left untouched.
      *
      * @return The evaluation of the QBF.
      */
     @Override
     public Double evaluate(Solution<Integer> sol) {
+        if (sol.size() <= sparseEvaluationRatio * size)
+            return sol.cost = getSign() * evaluateElementsQBF(sol);
         setVariables(sol);
         return sol.cost = evaluateQBF();
     }
 
+    /**
+     * Evaluates the QBF f(x) = x'.A.x over the elements of a solution only,
+     * which costs O(|S|^2) instead of the O(n.|S|) of {@link #evaluateQBF()}.
+     *
+     * @param sol the solution which will be evaluated.
+     * @return The value of the QBF, regardless of the sign of the costs.
+     */
+    protected double evaluateElementsQBF(Solution<Integer> sol) {
+        int[] elements = this.elements.get();
+        int count;
+        if (sol instanceof BinarySolution)
+            count = ((BinarySolution) sol).sortedElements(elements);
+        else {
+            count = 0;
+            for (Integer elem : sol)
+                elements[count++] = elem;
+            Arrays.sort(elements, 0, count);
+        }
+        return A.evaluate(elements, count);
+    }
+
     /**
      * Evaluates a QBF by calculating the matrix multiplication that defines the
      * QBF: f(x) = x'.A.x .
@@ -98,15 +182,7 @@ public class QBF implements Evaluator<Integer> {
      * @return The value of the QBF.
      */
     public Double evaluateQBF() {
-        double aux = 0, sum = 0;
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++)
-                aux += variables[j] * A[i][j];
-            sum += aux * variables[i];
-            aux = 0;
-        }
-
-        return sum;
+        return A.evaluate(getVariables());
     }
 
     /*
@@ -130,7 +206,7 @@ public class QBF implements Evaluator<Integer> {
      *         insertion.
      */
     public Double evaluateInsertionQBF(int i) {
-        if (variables[i] == 1)
+        if (getVariables()[i] == 1)
             return 0.0;
 
         return evaluateContributionQBF(i);
@@ -157,7 +233,7 @@ public class QBF implements Evaluator<Integer> {
      *         removal.
      */
     public Double evaluateRemovalQBF(int i) {
-        if (variables[i] == 0)
+        if (getVariables()[i] == 0)
             return 0.0;
 
         return -evaluateContributionQBF(i);
@@ -175,6 +251,63 @@ public class QBF implements Evaluator<Integer> {
         return evaluateExchangeQBF(elemIn, elemOut);
     }
 
+    /**
+     * {@inheritDoc} In the case of a QBF, the contributions of all candidates
+     * are obtained from a single sweep over the elements of the solution (see
+     * {@link #evaluateContributionsQBF}).
+     */
+    @Override
+    public void evaluateInsertionCosts(List<Integer> candidates, Solution<Integer> sol, double[] deltas) {
+        double[] variables = getVariables(), g = evaluateContributionsQBF(candidates, sol);
+        for (int k = 0; k < candidates.size(); k++) {
+            int i = candidates.get(k);
+            deltas[k] = variables[i] == 1 ? 0.0 : getSign() * g[i];
+        }
+    }
+
+    /**
+     * {@inheritDoc} In the case of a QBF, the contributions of all candidates
+     * are obtained from a single sweep over the elements of the solution (see
+     * {@link #evaluateContributionsQBF}).
+     */
+    @Override
+    public void evaluateRemovalCosts(List<Integer> candidates, Solution<Integer> sol, double[] deltas) {
+        double[] variables = getVariables(), g = evaluateContributionsQBF(candidates, sol);
+        for (int k = 0; k < candidates.size(); k++) {
+            int i = candidates.get(k);
+            deltas[k] = variables[i] == 0 ? 0.0 : -getSign() * g[i];
+        }
+    }
+
+    /**
+     * Determines the contributions of the candidates to the QBF given a
+     * solution, which is also set as the current domain variables. When the
+     * solution is not larger than the candidate set, the contributions of all
+     * elements are accumulated in a single sweep over the elements of the
+     * solution, costing O(n.|S|) instead of O(n.|C|) for the individual
+     * evaluations of each candidate.
+     *
+     * @param candidates the elements whose contributions are needed.
+     * @param sol        the solution under consideration.
+     * @return an array holding the contribution of each candidate at the
+     *         candidate's index.
+     */
+    protected double[] evaluateContributionsQBF(List<Integer> candidates, Solution<Integer> sol) {
+        setVariables(sol);
+        double[] g = contributions.get();
+        if (sol.size() <= candidates.size()) {
+            for (int i = 0; i < size; i++)
+                g[i] = A.diagonal(i);
+            for (Integer elem : sol)
+                A.addInteractions(elem, 1.0, g);
+        } else {
+            double[] variables = getVariables();
+            for (Integer i : candidates)
+                g[i] = A.contribution(i, variables);
+        }
+        return g;
+    }
+
     /**
      * Determines the contribution to the QBF objective function from the
      * exchange of two elements one belonging to the solution and the other not.
@@ -187,6 +320,7 @@ public class QBF implements Evaluator<Integer> {
      *         exchange.
      */
     public Double evaluateExchangeQBF(int in, int out) {
+        final double[] variables = getVariables();
         double sum = 0.0;
 
         if (in == out)
@@ -198,7 +332,7 @@ public class QBF implements Evaluator<Integer> {
 
         sum += evaluateContributionQBF(in);
         sum -= evaluateContributionQBF(out);
-        sum -= (A[in][out] + A[out][in]);
+        sum -= A.interaction(in, out);
 
         return sum;
     }
@@ -217,49 +351,97 @@ public class QBF implements Evaluator<Integer> {
      *         insertion.
      */
     public Double evaluateContributionQBF(int i) {
-        Double sum = 0.0;
-
-        for (int j = 0; j < size; j++) {
-            if (i != j)
-                sum += variables[j] * (A[i][j] + A[j][i]);
-        }
-        sum += A[i][i];
-
-        return sum;
+        return A.contribution(i, getVariables());
     }
 
     public Double evaluateContributionQBF(int i, Solution<Integer> sol) {
         setVariables(sol);
+        return evaluateContributionQBF(i);
+    }
 
-        Double sum = 0.0;
+    /**
+     * Adds the interactions of element j, scaled by s, to the contributions of
+     * all other elements, i.e., g[i] += s * (a_{ij} + a_{ji}) for each i != j.
+     * This is the update required to keep the contributions of every element
+     * up to date when element j enters (s = 1) or leaves (s = -1) a solution.
+     *
+     * @param j index of the element entering or leaving the solution.
+     * @param s the scale applied to the interactions.
+     * @param g the contributions being updated.
+     */
+    public void addInteractions(int j, double s, double[] g) {
+        A.addInteractions(j, s, g);
+    }
 
-        for (int j = 0; j < size; j++) {
-            if (i != j)
-                sum += variables[j] * (A[i][j] + A[j][i]);
+    /**
+     * Responsible for reading the coefficients matrix {@link #A}, choosing its
+     * representation according to the density of the coefficients read.
+     * Matrices which would be dense off the heap are read in two passes (see
+     * {@link #readOffHeap}).
+     */
+    protected void read_coefs(InstanceScanner in, int _size) throws IOException {
+        if (QBFMatrix.Builder.isOffHeap(_size)) {
+            A = readOffHeap(in, _size);
+            if (A != null)
+                return;
         }
-        sum += A[i][i];
-
-        return sum;
+        // Reserves room for dense instances of moderate size up front.
+        long coefficients = (long) _size * (_size + 1) / 2;
+        QBFMatrix.Builder builder = new QBFMatrix.Builder(_size, Math.min(coefficients, 1 << 24));
+        for (int i = 0; i < _size; i++)
+            for (int j = i; j < _size; j++)
+                builder.add(i, j, in.nextDouble());
+        A = builder.build();
     }
 
     /**
-     * Responsible for reading the coefficients matrix {@link #A}.
+     * Reads a coefficients matrix whose dense form is kept off the heap (see
+     * {@link QBFMatrix.Builder#isOffHeap}) without collecting its coefficients
+     * on the heap. A first pass finds their density and width, then, if the
+     * matrix is dense, a second one streams its rows straight into the
+     * matrix.
+     *
+     * @return the matrix read, or null if it is sparse, in which case the
+     * scanner is back at its first coefficient.
      */
-    protected void read_coefs(StreamTokenizer stok, int _size) throws IOException {
-        A = new Double[_size][_size];
+    private QBFMatrix readOffHeap(InstanceScanner in, int _size) throws IOException {
+        long first = in.offset(), nonZeros = 0;
+        boolean integral = true;
+        double min = 0, max = 0;
         for (int i = 0; i < _size; i++)
             for (int j = i; j < _size; j++) {
-                stok.nextToken();
-                A[i][j] = stok.nval;
-                if (j > i)
-                    A[j][i] = 0.0;
+                double value = in.nextDouble();
+                if (value == 0)
+                    continue;
+                nonZeros++;
+                integral &= value == Math.rint(value);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
             }
+        in.seek(first);
+        if (!QBFMatrix.Builder.isDense(_size, nonZeros))
+            return null;
+
+        int width = MappedQBFMatrix.width(integral, min, max);
+        AbstractDenseQBFMatrix matrix = QBFMatrix.Builder.emptyDense(_size, width);
+        ByteBuffer row = ByteBuffer.allocate(_size * width).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < _size; i++) {
+            row.clear();
+            for (int j = i; j < _size; j++)
+                MappedQBFMatrix.put(row, width, in.nextDouble());
+            row.flip();
+            matrix.setRow(i, row);
+        }
+        matrix.complete();
+        return matrix;
     }
 
     /**
      * Responsible for setting the QBF function parameters by reading the
      * necessary input from an external file. this method reads the domain's
-     * dimension and matrix {@link #A}.
+     * dimension and matrix {@link #A}. Binary instances (see
+     * {@link BinaryInstance}) are read directly, and text instances are read
+     * from their binary cache when there is one, being cached otherwise.
      *
      * @param filename Name of the file containing the input for setting the black
      *                 box function.
@@ -267,13 +449,19 @@ public class QBF implements Evaluator<Integer> {
      * @throws IOException Necessary for I/O operations.
      */
     protected Integer readInput(String filename) throws IOException {
-        Reader fileInst = new BufferedReader(new FileReader(filename));
-        StreamTokenizer stok = new StreamTokenizer(fileInst);
-
-        stok.nextToken();
-        int _size = (int) stok.nval;
+        BinaryInstance instance = BinaryInstance.isBinary(filename) ? BinaryInstance.read(filename)
+                : BinaryInstance.loadCache(filename, false);
+        if (instance != null) {
+            A = instance.A;
+            return instance.size;
+        }
 
-        read_coefs(stok, _size);
+        int _size;
+        try (InstanceScanner in = new InstanceScanner(filename)) {
+            _size = in.nextInt();
+            read_coefs(in, _size);
+        }
+        BinaryInstance.saveCache(filename, A, null, Double.NaN);
         return _size;
     }
 
@@ -283,15 +471,15 @@ public class QBF implements Evaluator<Integer> {
      *
      * @return a pointer to the array of domain variables.
      */
-    protected Double[] allocateVariables() {
-        return new Double[size];
+    protected double[] allocateVariables() {
+        return new double[size];
     }
 
     /**
      * Reset the domain variables to their default values.
      */
     public void resetVariables() {
-        Arrays.fill(variables, 0.0);
+        Arrays.fill(getVariables(), 0.0);
     }
 
     /**
@@ -300,7 +488,7 @@ public class QBF implements Evaluator<Integer> {
     public void printMatrix() {
         for (int i = 0; i < size; i++) {
             for (int j = i; j < size; j++)
-                System.out.print(A[i][j] + " ");
+                System.out.print(A.get(i, j) + " ");
             System.out.println();
         }
     }
@@ -313,6 +501,7 @@ public class QBF implements Evaluator<Integer> {
      */
     public static void main(String[] args) throws IOException {
         QBF qbf = new QBF("instances/qbf/qbf020");
+        double[] variables = qbf.getVariables();
         // qbf.printMatrix();
         double maxVal = Double.NEGATIVE_INFINITY;
 
@@ -321,11 +510,11 @@ public class QBF implements Evaluator<Integer> {
         for (int i = 0; i < 1000000; i++) {
             for (int j = 0; j < qbf.size; j++) {
                 if (Math.random() < 0.5)
-                    qbf.variables[j] = 0.0;
+                    variables[j] = 0.0;
                 else
-                    qbf.variables[j] = 1.0;
+                    variables[j] = 1.0;
             }
-            // System.out.println("x = " + Arrays.toString(qbf.variables));
+            // System.out.println("x = " + Arrays.toString(variables));
             Double eval = qbf.evaluateQBF();
             // System.out.println("f(x) = " + eval);
             if (maxVal < eval)
@@ -335,15 +524,15 @@ public class QBF implements Evaluator<Integer> {
 
         // evaluates the zero array.
         for (int j = 0; j < qbf.size; j++)
-            qbf.variables[j] = 0.0;
-        // System.out.println("x = " + Arrays.toString(qbf.variables));
+            variables[j] = 0.0;
+        // System.out.println("x = " + Arrays.toString(variables));
         // System.out.println("f(x) = " + qbf.evaluateQBF());
 
         // evaluates the all-ones array.
         for (int j = 0; j < qbf.size; j++) {
-            qbf.variables[j] = 1.0;
+            variables[j] = 1.0;
         }
-        // System.out.println("x = " + Arrays.toString(qbf.variables));
+        // System.out.println("x = " + Arrays.toString(variables));
         // System.out.println("f(x) = " + qbf.evaluateQBF());
     }
 }
@@ -0,0 +1,354 @@
+package problems.qbf;
+
+import java.util.Arrays;
+
+/**
+ * The matrix A of coefficients of a QBF f(x) = x'.A.x, as read from an
+ * instance file, i.e., upper triangular. Besides the coefficients themselves,
+ * it provides the kernels used to evaluate the QBF, so that each storage
+ * scheme can iterate over its coefficients in the most efficient way.
+ */
+public abstract class QBFMatrix {
+
+    /**
+     * The density (fraction of nonzero coefficients in the upper triangle)
+     * below which the matrices are stored in the sparse representation.
+     */
+    public static double sparseDensityThreshold = 0.25;
+
+    /**
+     * Whether the dense matrices use the unrolled kernels of
+     * {@link UnrolledDenseQBFMatrix} instead of the plain loops of
+     * {@link DenseQBFMatrix}.
+     */
+    public static boolean unrolledKernels = true;
+
+    /**
+     * Whether the dense matrices whose coefficients are all integers are
+     * stored in the narrowest integer type that fits them (see
+     * {@link IntegerDenseQBFMatrix}).
+     */
+    public static boolean integerStorage = true;
+
+    /**
+     * Whether the dense matrices are kept off the heap (see
+     * {@link MappedQBFMatrix}). Regardless of it, that is where the dense
+     * matrices too large for a Java array go.
+     */
+    public static boolean offHeapStorage = false;
+
+    /**
+     * The side of the square blocks in which the dense matrices are traversed
+     * when mirroring their upper triangle.
+     */
+    static final int BLOCK = 64;
+
+    /**
+     * Dimension of the matrix.
+     */
+    public final int size;
+
+    protected QBFMatrix(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Gives the coefficient a_{ij} of the matrix.
+     *
+     * @param i the row of the coefficient.
+     * @param j the column of the coefficient.
+     * @return the coefficient a_{ij}.
+     */
+    public abstract double get(int i, int j);
+
+    /**
+     * Gives the diagonal coefficient a_{ii}.
+     *
+     * @param i the row and column of the coefficient.
+     * @return the coefficient a_{ii}.
+     */
+    public double diagonal(int i) {
+        return get(i, i);
+    }
+
+    /**
+     * Gives the interaction a_{ij} + a_{ji} between two distinct elements.
+     *
+     * @param i the first element.
+     * @param j the second element.
+     * @return the sum a_{ij} + a_{ji}.
+     */
+    public double interaction(int i, int j) {
+        return get(i, j) + get(j, i);
+    }
+
+    /**
+     * Tells whether all the coefficients are integers, in which case the
+     * values and costs derived from this matrix are exact.
+     *
+     * @return true if every coefficient is an integer.
+     */
+    public boolean isIntegral() {
+        return false;
+    }
+
+    /**
+     * Gives the number of nonzero coefficients stored.
+     *
+     * @return the number of nonzero coefficients.
+     */
+    public abstract long nonZeros();
+
+    /**
+     * Evaluates the QBF f(x) = x'.A.x for the given domain variables.
+     *
+     * @param x the domain variables.
+     * @return the value of the QBF.
+     */
+    public abstract double evaluate(double[] x);
+
+    /**
+     * Evaluates the QBF f(x) = x'.A.x for the solution made of the given
+     * elements, visiting only the coefficients among them, which costs
+     * O(|S|^2) regardless of the dimension of the matrix.
+     *
+     * @param elements the elements of the solution, in increasing order and
+     *                 without repetitions.
+     * @param count    the number of elements, taken from the start of the
+     *                 array.
+     * @return the value of the QBF.
+     */
+    public double evaluate(int[] elements, int count) {
+        double sum = 0;
+        for (int a = 0; a < count; a++) {
+            final int i = elements[a];
+            double aux = diagonal(i);
+            for (int b = a + 1; b < count; b++)
+                aux += interaction(i, elements[b]);
+            sum += aux;
+        }
+        return sum;
+    }
+
+    /**
+     * Determines the contribution of element i to the QBF, given the domain
+     * variables x, i.e., a_{ii} + \sum_{j != i}{x_j * (a_{ij} + a_{ji})}.
+     *
+     * @param i the element under consideration.
+     * @param x the domain variables.
+     * @return the contribution of the element.
+     */
+    public abstract double contribution(int i, double[] x);
+
+    /**
+     * Adds the interactions of element j, scaled by s, to the contributions of
+     * all other elements, i.e., g[i] += s * (a_{ij} + a_{ji}) for each i != j.
+     *
+     * @param j the element entering or leaving a solution.
+     * @param s the scale applied to the interactions.
+     * @param g the contributions being updated.
+     */
+    public abstract void addInteractions(int j, double s, double[] g);
+
+    /**
+     * Lists the elements interacting with element j, i.e., every i != j with
+     * a_{ij} + a_{ji} != 0, in increasing order. By default, the interactions
+     * of j with all the other elements are scanned.
+     *
+     * @param j    the element under consideration.
+     * @param into the array receiving the elements, with room for all of
+     *             them.
+     * @return the number of elements written.
+     */
+    public int neighbors(int j, int[] into) {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+            if (i != j && interaction(j, i) != 0)
+                into[count++] = i;
+        return count;
+    }
+
+    /**
+     * Incrementally collects the coefficients of an upper triangular matrix,
+     * given row by row in increasing column order, and builds the matrix in
+     * the representation that best suits its density.
+     */
+    public static class Builder {
+
+        private final int size;
+
+        private final int[] rowStart;
+
+        private int[] columns = new int[1024];
+
+        private double[] values = new double[1024];
+
+        private int nonZeros = 0, lastRow = 0;
+
+        private boolean integral = true;
+
+        private double min = 0, max = 0;
+
+        public Builder(int size) {
+            this.size = size;
+            this.rowStart = new int[size + 1];
+        }
+
+        /**
+         * Creates a builder with room for the expected number of nonzero
+         * coefficients, sparing the growth of its arrays.
+         *
+         * @param size      the dimension of the matrix.
+         * @param nonZeros  the expected number of nonzero coefficients.
+         */
+        public Builder(int size, long nonZeros) {
+            this(size);
+            int capacity = (int) Math.max(16, Math.min(nonZeros, Integer.MAX_VALUE - 8));
+            columns = new int[capacity];
+            values = new double[capacity];
+        }
+
+        /**
+         * Adds the coefficient a_{ij}, with i <= j. The coefficients must be
+         * added in row-major order, zeros may be omitted.
+         *
+         * @param i     the row of the coefficient.
+         * @param j     the column of the coefficient.
+         * @param value the coefficient a_{ij}.
+         */
+        public void add(int i, int j, double value) {
+            if (value == 0)
+                return;
+            while (lastRow < i)
+                rowStart[++lastRow] = nonZeros;
+            if (nonZeros == columns.length) {
+                if (nonZeros == Integer.MAX_VALUE - 8)
+                    throw new IllegalStateException("Too many nonzero coefficients: " + nonZeros);
+                int capacity = (int) Math.min(2L * nonZeros, Integer.MAX_VALUE - 8);
+                columns = Arrays.copyOf(columns, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            integral &= value == Math.rint(value);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            columns[nonZeros] = j;
+            values[nonZeros++] = value;
+        }
+
+        /**
+         * Builds the matrix. The sparse representation is chosen when the
+         * density is below {@link #sparseDensityThreshold}, otherwise the
+         * matrix is dense, kept off the heap if {@link #offHeapStorage} is set
+         * or if it does not fit a Java array.
+         *
+         * @return the built matrix.
+         */
+        public QBFMatrix build() {
+            if (!isDense(size, nonZeros))
+                return buildSparse();
+            if (isOffHeap(size))
+                return buildOffHeap();
+            return buildDense();
+        }
+
+        /**
+         * Tells whether a matrix with the given dimension and number of
+         * nonzero coefficients is built in the dense representation, i.e.,
+         * whether its density reaches {@link #sparseDensityThreshold}.
+         *
+         * @param size     the dimension of the matrix.
+         * @param nonZeros the number of nonzero coefficients.
+         * @return true if the matrix is dense.
+         */
+        public static boolean isDense(int size, long nonZeros) {
+            double density = nonZeros / ((double) size * (size + 1) / 2);
+            return density >= sparseDensityThreshold;
+        }
+
+        /**
+         * Tells whether a dense matrix with the given dimension is kept off
+         * the heap, as {@link #offHeapStorage} is set or as it does not fit a
+         * Java array.
+         *
+         * @param size the dimension of the matrix.
+         * @return true if the dense matrix is kept off the heap.
+         */
+        public static boolean isOffHeap(int size) {
+            return offHeapStorage || (long) size * size > Integer.MAX_VALUE - 8;
+        }
+
+        /**
+         * Creates an empty dense matrix, to be filled in place through
+         * {@link AbstractDenseQBFMatrix#setRow} and
+         * {@link AbstractDenseQBFMatrix#complete}. This spares collecting the
+         * coefficients when they are known to be dense (see {@link #isDense}).
+         * The storage is chosen as in {@link #build()}, given the width of the
+         * coefficients (see {@link MappedQBFMatrix#width}).
+         *
+         * @param size  the dimension of the matrix.
+         * @param width the width of the coefficients.
+         * @return the empty matrix.
+         */
+        static AbstractDenseQBFMatrix emptyDense(int size, int width) {
+            if (isOffHeap(size))
+                return MappedQBFMatrix.allocate(size, integerStorage ? width : Double.BYTES);
+            if (integerStorage && width == Byte.BYTES)
+                return new ByteDenseQBFMatrix(size);
+            if (integerStorage && width == Short.BYTES)
+                return new ShortDenseQBFMatrix(size);
+            if (integerStorage && width == Integer.BYTES)
+                return new IntDenseQBFMatrix(size);
+            if (unrolledKernels)
+                return new UnrolledDenseQBFMatrix(size);
+            return new DenseQBFMatrix(size);
+        }
+
+        /**
+         * Builds the matrix in the dense representation. Integer coefficients
+         * are stored in the narrowest integer type that fits them, unless
+         * {@link #integerStorage} is off, otherwise the kernels are the ones
+         * selected by {@link #unrolledKernels}.
+         *
+         * @return the built matrix.
+         */
+        public QBFMatrix buildDense() {
+            finishRows();
+            if (integerStorage && integral) {
+                QBFMatrix matrix = IntegerDenseQBFMatrix.create(size, rowStart, columns, values, min, max);
+                if (matrix != null)
+                    return matrix;
+            }
+            if (unrolledKernels)
+                return new UnrolledDenseQBFMatrix(size, rowStart, columns, values);
+            return new DenseQBFMatrix(size, rowStart, columns, values);
+        }
+
+        /**
+         * Builds the matrix in the dense representation, kept off the heap.
+         * Integer coefficients are stored in the narrowest integer type that
+         * fits them, unless {@link #integerStorage} is off.
+         *
+         * @return the built matrix.
+         */
+        public MappedQBFMatrix buildOffHeap() {
+            finishRows();
+            return MappedQBFMatrix.allocate(size, rowStart, columns, values,
+                    MappedQBFMatrix.width(integerStorage && integral, min, max));
+        }
+
+        /**
+         * Builds the matrix in the sparse representation.
+         *
+         * @return the built matrix.
+         */
+        public SparseQBFMatrix buildSparse() {
+            finishRows();
+            return new SparseQBFMatrix(size, rowStart, columns, values);
+        }
+
+        private void finishRows() {
+            while (lastRow < size)
+                rowStart[++lastRow] = nonZeros;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package problems.qbf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import problems.kqbf.KQBF;
+
+/**
+ * Compares the scalar, the unrolled and the integer kernels of the dense
+ * matrices on the shipped instances and on larger randomly generated ones.
+ */
+public class QBF_Benchmark {
+
+    private static final List<String> INSTANCE_LIST = Arrays.asList(
+            "instances/kqbf/kqbf200",
+            "instances/kqbf/kqbf400");
+    private static final List<Integer> GENERATED_SIZES = Arrays.asList(1000, 2000, 4000);
+
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) throws IOException {
+        for (String instance : INSTANCE_LIST) {
+            QBFMatrix[] matrices = new QBFMatrix[3];
+            for (int k = 0; k < matrices.length; k++) {
+                select(k);
+                matrices[k] = new KQBF(instance).A;
+            }
+            compare(instance, matrices);
+        }
+        for (int size : GENERATED_SIZES) {
+            QBFMatrix.Builder builder = generate(size);
+            QBFMatrix[] matrices = new QBFMatrix[3];
+            for (int k = 0; k < matrices.length; k++) {
+                select(k);
+                matrices[k] = builder.buildDense();
+            }
+            compare("random" + size, matrices);
+        }
+        select(2);
+    }
+
+    /**
+     * Selects the scalar (0), the unrolled (1) or the integer (2) kernels
+     * for the dense matrices built next.
+     */
+    private static void select(int kernels) {
+        QBFMatrix.unrolledKernels = kernels == 1;
+        QBFMatrix.integerStorage = kernels == 2;
+    }
+
+    private static QBFMatrix.Builder generate(int size) {
+        Random rng = new Random(size);
+        QBFMatrix.Builder builder = new QBFMatrix.Builder(size);
+        for (int i = 0; i < size; i++)
+            for (int j = i; j < size; j++)
+                builder.add(i, j, rng.nextInt(21) - 10);
+        return builder;
+    }
+
+    private static void compare(String name, QBFMatrix[] matrices) {
+        Random rng = new Random(0);
+        double[][] xs = new double[20][matrices[0].size];
+        for (double[] x : xs)
+            for (int j = 0; j < x.length; j++)
+                x[j] = rng.nextInt(4) == 0 ? 1.0 : 0.0;
+
+        for (int rep = 0; rep < REPETITIONS; rep++) {
+            double[] s = time(matrices[0], xs), u = time(matrices[1], xs), i = time(matrices[2], xs);
+            System.out.printf("%s: evaluate %.1f / %.1f / %.1f ms, contribution %.1f / %.1f / %.1f ms, " +
+                            "addInteractions %.1f / %.1f / %.1f ms (scalar / unrolled / %s)%n",
+                    name, s[0], u[0], i[0], s[1], u[1], i[1], s[2], u[2], i[2],
+                    matrices[2].getClass().getSimpleName());
+            for (double[] t : new double[][]{u, i})
+                if (Math.abs(s[3] - t[3]) > 1e-6 * Math.max(1.0, Math.abs(s[3])))
+                    System.out.println("Checksums differ: " + s[3] + " != " + t[3]);
+        }
+    }
+
+    private static double[] time(QBFMatrix A, double[][] xs) {
+        double checksum = 0;
+        double[] g = new double[A.size];
+
+        long start = System.nanoTime();
+        for (double[] x : xs)
+            checksum += A.evaluate(x);
+        long evaluated = System.nanoTime();
+        for (double[] x : xs)
+            for (int i = 0; i < A.size; i++)
+                checksum += A.contribution(i, x);
+        long contributed = System.nanoTime();
+        for (int rep = 0; rep < xs.length; rep++)
+            for (int j = 0; j < A.size; j++)
+                A.addInteractions(j, (j & 1) == 0 ? 1.0 : -1.0, g);
+        long updated = System.nanoTime();
+        for (double gi : g)
+            checksum += gi;
+
+        return new double[]{(evaluated - start) / 1e6, (contributed - evaluated) / 1e6,
+                (updated - contributed) / 1e6, checksum};
+    }
+}
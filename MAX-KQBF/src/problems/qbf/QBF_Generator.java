@@ -0,0 +1,261 @@
+package problems.qbf;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generator of synthetic QBF instances, for measuring how the solvers scale
+ * beyond the shipped instances. Each coefficient a_{ij} is nonzero with
+ * probability given by the density, in which case it is drawn uniformly from
+ * an integer range. The default parameters reproduce the statistics of the
+ * shipped instances.
+ * <p>
+ * The coefficients are not drawn in sequence, but computed from a hash of the
+ * seed and of their position. The instances are therefore reproducible and
+ * any coefficient can be obtained at any time, which allows writing an
+ * instance of any size as a stream, row by row, either in the text format or
+ * in the binary one (see {@link BinaryInstance}), without ever holding it in
+ * memory.
+ */
+public class QBF_Generator {
+
+    /**
+     * Dimension of the instances generated.
+     */
+    public final int size;
+
+    /**
+     * The probability of each coefficient being nonzero.
+     */
+    public final double density;
+
+    /**
+     * The range of the coefficients.
+     */
+    public final int minCoefficient, maxCoefficient;
+
+    /**
+     * The seed of the instance.
+     */
+    public final long seed;
+
+    /**
+     * Constructor for the QBF_Generator class.
+     *
+     * @param size           Dimension of the instance.
+     * @param density        The probability of each coefficient being
+     *                       nonzero, in (0, 1].
+     * @param minCoefficient The smallest coefficient.
+     * @param maxCoefficient The largest coefficient.
+     * @param seed           The seed of the instance.
+     */
+    public QBF_Generator(int size, double density, int minCoefficient, int maxCoefficient, long seed) {
+        if (size <= 0 || density <= 0 || density > 1 || minCoefficient > maxCoefficient)
+            throw new IllegalArgumentException("Invalid instance parameters");
+        this.size = size;
+        this.density = density;
+        this.minCoefficient = minCoefficient;
+        this.maxCoefficient = maxCoefficient;
+        this.seed = seed;
+    }
+
+    /**
+     * Mixes the bits of a value, as the finalizer of the SplitMix64
+     * generator.
+     */
+    protected static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gives the coefficient a_{ij}, with i <= j.
+     *
+     * @param i the row of the coefficient.
+     * @param j the column of the coefficient.
+     * @return the coefficient a_{ij}.
+     */
+    public int coefficient(int i, int j) {
+        long h = mix(seed + 0x9e3779b97f4a7c15L * ((long) i * size + j + 1));
+        if (density < 1 && (h >>> 11) * 0x1.0p-53 >= density)
+            return 0;
+        long range = (long) maxCoefficient - minCoefficient + 1;
+        return (int) (minCoefficient + (mix(h) >>> 1) % range);
+    }
+
+    /**
+     * Gives the weights of the elements, for the generators of instances with
+     * weights.
+     *
+     * @return the weights, or null if the instances have none.
+     */
+    public double[] weights() {
+        return null;
+    }
+
+    /**
+     * Gives the knapsack capacity, for the generators of instances with
+     * weights.
+     *
+     * @return the capacity, or NaN if the instances have no weights.
+     */
+    public double capacity() {
+        return Double.NaN;
+    }
+
+    /**
+     * Writes whatever comes before the coefficients in the text format.
+     *
+     * @param out the writer of the instance.
+     * @throws IOException Necessary for I/O operations.
+     */
+    protected void writePreamble(Writer out) throws IOException {
+        out.write(size + "\n");
+    }
+
+    /**
+     * Writes the instance in the text format.
+     *
+     * @param filename Name of the file to be written.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public void writeText(String filename) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(filename), 1 << 20)) {
+            writePreamble(out);
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                row.setLength(0);
+                for (int j = i; j < size; j++) {
+                    if (j > i)
+                        row.append(' ');
+                    row.append(coefficient(i, j));
+                }
+                row.append('\n');
+                out.append(row);
+            }
+        }
+    }
+
+    /**
+     * Writes the instance in the binary format.
+     *
+     * @param filename Name of the file to be written.
+     * @param layout   the layout of the coefficients, {@link BinaryInstance#ROWS}
+     *                 or {@link BinaryInstance#PACKED}.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public void writeBinary(String filename, int layout) throws IOException {
+        BinaryInstance.write(filename, asMatrix(), weights(), capacity(), layout,
+                MappedQBFMatrix.width(true, Math.min(0, minCoefficient), Math.max(0, maxCoefficient)));
+    }
+
+    /**
+     * Gives a matrix whose coefficients are computed on demand, taking no
+     * memory at all, but whose kernels are far slower than the ones of the
+     * stored matrices.
+     *
+     * @return the matrix of the instance.
+     */
+    public QBFMatrix asMatrix() {
+        return new QBFMatrix(size) {
+
+            @Override
+            public double get(int i, int j) {
+                return i > j ? 0.0 : coefficient(i, j);
+            }
+
+            @Override
+            public double interaction(int i, int j) {
+                return i < j ? coefficient(i, j) : coefficient(j, i);
+            }
+
+            @Override
+            public boolean isIntegral() {
+                return true;
+            }
+
+            @Override
+            public long nonZeros() {
+                long count = 0;
+                for (int i = 0; i < size; i++)
+                    for (int j = i; j < size; j++)
+                        if (coefficient(i, j) != 0)
+                            count++;
+                return count;
+            }
+
+            @Override
+            public double evaluate(double[] x) {
+                double sum = 0;
+                for (int i = 0; i < size; i++)
+                    if (x[i] != 0)
+                        for (int j = i; j < size; j++)
+                            sum += x[i] * x[j] * coefficient(i, j);
+                return sum;
+            }
+
+            @Override
+            public double contribution(int i, double[] x) {
+                double sum = coefficient(i, i);
+                for (int j = 0; j < size; j++)
+                    if (j != i && x[j] != 0)
+                        sum += x[j] * interaction(i, j);
+                return sum;
+            }
+
+            @Override
+            public void addInteractions(int j, double s, double[] g) {
+                for (int i = 0; i < size; i++)
+                    if (i != j)
+                        g[i] += s * interaction(i, j);
+            }
+        };
+    }
+
+    /**
+     * Gives the value following an option in the command line arguments.
+     */
+    protected static String option(String[] args, String name, String defaultValue) {
+        for (int k = 0; k + 1 < args.length; k++)
+            if (args[k].equals(name))
+                return args[k + 1];
+        return defaultValue;
+    }
+
+    /**
+     * Writes the instance to a file in the format chosen in the command line:
+     * "text" (the default), "rows" or "packed" (see {@link BinaryInstance}).
+     */
+    protected void write(String filename, String format) throws IOException {
+        long start = System.currentTimeMillis();
+        if (format.equals("text"))
+            writeText(filename);
+        else
+            writeBinary(filename, format.equals("rows") ? BinaryInstance.ROWS : BinaryInstance.PACKED);
+        System.out.println("Wrote " + filename + " in " + (System.currentTimeMillis() - start) / 1000.0 + "s");
+    }
+
+    /**
+     * Generates a QBF instance.
+     *
+     * @param args the file to be written, the dimension of the instance and
+     *             the options -density, -min, -max, -seed and -format.
+     * @throws IOException Necessary for I/O operations.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: QBF_Generator <file> <n> [-density 1.0] [-min -10] [-max 10] [-seed 0] " +
+                    "[-format text|rows|packed]");
+            return;
+        }
+        QBF_Generator generator = new QBF_Generator(Integer.parseInt(args[1]),
+                Double.parseDouble(option(args, "-density", "1.0")),
+                Integer.parseInt(option(args, "-min", "-10")),
+                Integer.parseInt(option(args, "-max", "10")),
+                Long.parseLong(option(args, "-seed", "0")));
+        generator.write(args[0], option(args, "-format", "text"));
+    }
+}
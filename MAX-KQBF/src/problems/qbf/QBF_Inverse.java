@@ -23,6 +23,14 @@ public class QBF_Inverse extends QBF {
     }
 
 
+    /* (non-Javadoc)
+     * @see problems.qbf.QBF#getSign()
+     */
+    @Override
+    public double getSign() {
+        return -1.0;
+    }
+
     /* (non-Javadoc)
      * @see problems.qbf.QBF#evaluate()
      */
@@ -0,0 +1,179 @@
+package problems.qbf;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row (CSR) representation of the matrix of coefficients of
+ * a QBF, suited for large low-density instances. The diagonal is kept apart,
+ * and each row i lists, in increasing column order, the nonzero interactions
+ * a_{ij} + a_{ji} with every other element j. Every interaction is therefore
+ * stored twice (once in each row), so that the contribution of an element is
+ * a scan over a single row.
+ */
+public class SparseQBFMatrix extends QBFMatrix {
+
+    /**
+     * The diagonal coefficients a_{ii}.
+     */
+    protected final double[] diagonal;
+
+    /**
+     * The position in {@link #columns} and {@link #values} where each row
+     * starts, row i ending where row i + 1 starts.
+     */
+    protected final int[] rowStart;
+
+    /**
+     * The column of each stored interaction.
+     */
+    protected final int[] columns;
+
+    /**
+     * The value a_{ij} + a_{ji} of each stored interaction.
+     */
+    protected final double[] values;
+
+    /**
+     * Whether all the coefficients are integers.
+     */
+    private final boolean integral;
+
+    /**
+     * Creates a sparse matrix from the upper triangle given in compressed
+     * sparse row format (see {@link QBFMatrix.Builder}).
+     */
+    SparseQBFMatrix(int size, int[] upperStart, int[] upperColumns, double[] upperValues) {
+        super(size);
+        diagonal = new double[size];
+        rowStart = new int[size + 1];
+
+        // Counts the off-diagonal entries of each row of the symmetric matrix:
+        int[] count = new int[size];
+        for (int i = 0; i < size; i++)
+            for (int k = upperStart[i]; k < upperStart[i + 1]; k++)
+                if (upperColumns[k] != i) {
+                    count[i]++;
+                    count[upperColumns[k]]++;
+                }
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += count[i];
+            if (total > Integer.MAX_VALUE - 8)
+                throw new IllegalStateException("Too many nonzero coefficients: " + total);
+            rowStart[i + 1] = (int) total;
+        }
+
+        // Scatters each entry to both of its rows. Since the rows of the upper
+        // triangle are visited in order, every row ends up sorted by column.
+        columns = new int[(int) total];
+        values = new double[(int) total];
+        int[] next = Arrays.copyOf(rowStart, size);
+        boolean integral = true;
+        for (int i = 0; i < size; i++)
+            for (int k = upperStart[i]; k < upperStart[i + 1]; k++) {
+                int j = upperColumns[k];
+                integral &= upperValues[k] == Math.rint(upperValues[k]);
+                if (j == i) {
+                    diagonal[i] = upperValues[k];
+                    continue;
+                }
+                columns[next[i]] = j;
+                values[next[i]++] = upperValues[k];
+                columns[next[j]] = i;
+                values[next[j]++] = upperValues[k];
+            }
+        this.integral = integral;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i == j)
+            return diagonal[i];
+        if (i > j)
+            return 0.0; // the lower triangle is zero
+        return interaction(i, j);
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return diagonal[i];
+    }
+
+    @Override
+    public double interaction(int i, int j) {
+        int k = Arrays.binarySearch(columns, rowStart[i], rowStart[i + 1], j);
+        return k < 0 ? 0.0 : values[k];
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    @Override
+    public long nonZeros() {
+        long count = columns.length / 2;
+        for (double a : diagonal)
+            if (a != 0)
+                count++;
+        return count;
+    }
+
+    @Override
+    public double evaluate(double[] x) {
+        double diagonalSum = 0, offDiagonalSum = 0;
+        for (int i = 0; i < size; i++) {
+            if (x[i] == 0)
+                continue;
+            double aux = 0;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                aux += x[columns[k]] * values[k];
+            diagonalSum += x[i] * diagonal[i];
+            offDiagonalSum += x[i] * aux;
+        }
+        return diagonalSum + offDiagonalSum / 2; // each interaction was visited twice
+    }
+
+    @Override
+    public double evaluate(int[] elements, int count) {
+        double diagonalSum = 0, offDiagonalSum = 0;
+        for (int a = 0; a < count; a++) {
+            final int i = elements[a];
+            diagonalSum += diagonal[i];
+            // Merges the row with the following elements, both sorted.
+            int k = rowStart[i], b = a + 1;
+            while (k < rowStart[i + 1] && b < count) {
+                if (columns[k] < elements[b])
+                    k++;
+                else if (columns[k] > elements[b])
+                    b++;
+                else
+                    offDiagonalSum += values[k++];
+            }
+        }
+        return diagonalSum + offDiagonalSum;
+    }
+
+    @Override
+    public double contribution(int i, double[] x) {
+        double sum = diagonal[i];
+        for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+            sum += x[columns[k]] * values[k];
+        return sum;
+    }
+
+    @Override
+    public void addInteractions(int j, double s, double[] g) {
+        for (int k = rowStart[j]; k < rowStart[j + 1]; k++)
+            g[columns[k]] += s * values[k];
+    }
+
+    @Override
+    public int neighbors(int j, int[] into) {
+        int count = 0;
+        for (int k = rowStart[j]; k < rowStart[j + 1]; k++)
+            if (values[k] != 0)
+                into[count++] = columns[k];
+        return count;
+    }
+}
@@ -0,0 +1,66 @@
+package problems.qbf;
+
+/**
+ * Dense matrix of coefficients whose dot-products are unrolled by hand. All
+ * the kernels are contiguous scans over rows of the symmetrized matrix Q (see
+ * {@link DenseQBFMatrix}). The dot-products accumulate on four independent
+ * sums, which breaks the dependency chain of a single floating point
+ * accumulator. They remain scalar loops, as the JIT compiler does not
+ * vectorize floating point reductions, which would change their rounding.
+ * Since the rows of {@link DenseQBFMatrix} are contiguous as well, the gain
+ * over its plain loops is modest, and {@link QBF_Benchmark} measures it.
+ */
+public class UnrolledDenseQBFMatrix extends DenseQBFMatrix {
+
+    UnrolledDenseQBFMatrix(int size) {
+        super(size);
+    }
+
+    UnrolledDenseQBFMatrix(int size, int[] rowStart, int[] columns, double[] values) {
+        super(size, rowStart, columns, values);
+    }
+
+    @Override
+    public double evaluate(double[] x) {
+        final int n = size;
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            if (x[i] != 0)
+                sum += x[i] * (Q[i * n + i] + rowDot(i * n, x, i + 1, n));
+        return sum;
+    }
+
+    @Override
+    public double contribution(int i, double[] x) {
+        final int n = size;
+        double qii = Q[i * n + i];
+        return qii + rowDot(i * n, x, 0, n) - x[i] * qii;
+    }
+
+    @Override
+    public void addInteractions(int j, double s, double[] g) {
+        final int n = size;
+        final int row = j * n;
+        for (int i = 0; i < n; i++)
+            g[i] += s * Q[row + i];
+        g[j] -= s * Q[row + j]; // undoes the diagonal
+    }
+
+    /**
+     * Computes the dot-product between x[from..to) and the same range of the
+     * row starting at position offset of the flattened matrix.
+     */
+    protected double rowDot(int offset, double[] x, int from, int to) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int j = from;
+        for (; j + 3 < to; j += 4) {
+            s0 += x[j] * Q[offset + j];
+            s1 += x[j + 1] * Q[offset + j + 1];
+            s2 += x[j + 2] * Q[offset + j + 2];
+            s3 += x[j + 3] * Q[offset + j + 3];
+        }
+        for (; j < to; j++)
+            s0 += x[j] * Q[offset + j];
+        return (s0 + s1) + (s2 + s3);
+    }
+}
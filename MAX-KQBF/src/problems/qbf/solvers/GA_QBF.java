@@ -4,7 +4,11 @@ import java.io.IOException;
 
 import metaheuristics.ga.AbstractGA;
 import problems.Evaluator;
+import problems.qbf.IncrementalQBF;
+import problems.qbf.QBF;
+import problems.qbf.QBFMatrix;
 import problems.qbf.QBF_Inverse;
+import solutions.BinarySolution;
 import solutions.Solution;
 
 /**
@@ -14,7 +18,21 @@ import solutions.Solution;
  *
  * @author ccavellucci, fusberti
  */
-public class GA_QBF extends AbstractGA<Integer, Integer> {
+public class GA_QBF extends AbstractGA<Integer> {
+
+    /**
+     * an incremental evaluator, available for the operators that need the
+     * contributions of the elements of a decoded chromosome. It is kept per
+     * thread, as the chromosomes may be repaired and evaluated concurrently.
+     */
+    protected final ThreadLocal<IncrementalQBF> incremental;
+
+    /**
+     * the loci of a derived chromosome kept from its reference, and the ones
+     * changed, inserted from the start and removed from the end, also kept per
+     * thread
+     */
+    private final ThreadLocal<int[][]> loci;
 
     /**
      * Constructor for the GA_QBF class. The QBF objective function is passed as
@@ -29,6 +47,24 @@ public class GA_QBF extends AbstractGA<Integer, Integer> {
      */
     public GA_QBF(Integer generations, Integer popSize, Double mutationRate, String filename) throws IOException {
         super(filename, generations, popSize, mutationRate);
+        this.incremental = ThreadLocal.withInitial(() -> new IncrementalQBF((QBF) ObjFunction));
+        this.loci = ThreadLocal.withInitial(() -> new int[2][chromosomeSize]);
+    }
+
+    /**
+     * Constructor for the GA_QBF class which shares an already read QBF. Only
+     * the QBF coefficients are shared, the evaluation state is kept per solver
+     * (and per thread), so several solvers can run concurrently.
+     *
+     * @param generations  Maximum number of generations.
+     * @param popSize      Size of the population.
+     * @param mutationRate The mutation rate.
+     * @param objFunction  The (inverse) QBF objective function.
+     */
+    public GA_QBF(Integer generations, Integer popSize, Double mutationRate, QBF_Inverse objFunction) {
+        super(objFunction, generations, popSize, mutationRate);
+        this.incremental = ThreadLocal.withInitial(() -> new IncrementalQBF(objFunction));
+        this.loci = ThreadLocal.withInitial(() -> new int[2][chromosomeSize]);
     }
 
     @Override
@@ -44,8 +80,8 @@ public class GA_QBF extends AbstractGA<Integer, Integer> {
      * to zero has also zero cost.
      */
     @Override
-    public Solution<Integer> createEmptySol() {
-        Solution<Integer> sol = new Solution<>();
+    public BinarySolution createEmptySol() {
+        BinarySolution sol = new BinarySolution(ObjFunction.getDomainSize());
         sol.cost = 0.0;
         return sol;
     }
@@ -53,15 +89,14 @@ public class GA_QBF extends AbstractGA<Integer, Integer> {
     /*
      * (non-Javadoc)
      *
-     * @see metaheuristics.ga.AbstractGA#decode(metaheuristics.ga.AbstractGA.
-     * Chromosome)
+     * @see metaheuristics.ga.AbstractGA#decode(long[])
      */
     @Override
-    protected Solution<Integer> decode(Chromosome chromosome) {
-        Solution<Integer> solution = createEmptySol();
-        for (int locus = 0; locus < chromosome.size(); locus++)
-            if (chromosome.get(locus) == 1)
-                solution.add(locus);
+    protected Solution<Integer> decode(long[] chromosome) {
+        BinarySolution solution = createEmptySol();
+        for (int w = 0; w < words; w++)
+            for (long word = chromosome[w]; word != 0; word &= word - 1)
+                solution.addElement((w << 6) + Long.numberOfTrailingZeros(word));
         ObjFunction.evaluate(solution);
         return solution;
     }
@@ -69,36 +104,63 @@ public class GA_QBF extends AbstractGA<Integer, Integer> {
     /*
      * (non-Javadoc)
      *
-     * @see metaheuristics.ga.AbstractGA#generateRandomChromosome()
+     * @see metaheuristics.ga.AbstractGA#fitness(long[])
      */
     @Override
-    protected Chromosome generateRandomChromosome() {
-        Chromosome chromosome = new Chromosome();
-        for (int i = 0; i < chromosomeSize; i++)
-            chromosome.add(rng.nextInt(2));
-        return chromosome;
+    protected double fitness(long[] chromosome) {
+        return -decode(chromosome).cost;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see metaheuristics.ga.AbstractGA#fitness(metaheuristics.ga.AbstractGA.
-     * Chromosome)
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Given the elements K kept from the reference, the change of the QBF is
+     * the gain of the elements inserted minus the one of the elements removed
+     * (see {@link #gain}), costing O(d.|K|) for d differing loci, instead of
+     * the O(|S|^2) of a full evaluation, which is still used when d is not
+     * small compared to |K|.
      */
     @Override
-    protected Double fitness(Chromosome chromosome) {
-        return -decode(chromosome).cost;
+    protected double fitness(long[] chromosome, long[] reference, double referenceFitness) {
+        int distance = distance(chromosome, reference), kept = 0;
+        for (int w = 0; w < words; w++)
+            kept += Long.bitCount(chromosome[w] & reference[w]);
+        if (2 * distance > kept)
+            return fitness(chromosome);
+
+        int[] keptLoci = loci.get()[0], changedLoci = loci.get()[1];
+        int inserted = 0, removed = chromosomeSize;
+        kept = 0;
+        for (int w = 0; w < words; w++) {
+            for (long word = chromosome[w] & reference[w]; word != 0; word &= word - 1)
+                keptLoci[kept++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            for (long word = chromosome[w] & ~reference[w]; word != 0; word &= word - 1)
+                changedLoci[inserted++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            for (long word = ~chromosome[w] & reference[w]; word != 0; word &= word - 1)
+                changedLoci[--removed] = (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        QBF qbf = (QBF) ObjFunction;
+        double difference = gain(qbf.A, keptLoci, kept, changedLoci, 0, inserted)
+                - gain(qbf.A, keptLoci, kept, changedLoci, removed, chromosomeSize);
+        return referenceFitness - qbf.getSign() * difference;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see
-     * metaheuristics.ga.AbstractGA#mutateGene(metaheuristics.ga.AbstractGA.Chromosome, java.lang.Integer)
+    /**
+     * Determines the gain of the QBF from inserting a set of elements E into a
+     * solution K, i.e., \sum_{e in E}{a_{ee} + \sum_{k in K}{a_{ek} + a_{ke}}}
+     * plus the interactions among the elements of E.
      */
-    @Override
-    protected void mutateGene(Chromosome chromosome, Integer locus) {
-        chromosome.set(locus, 1 - chromosome.get(locus));
+    private static double gain(QBFMatrix A, int[] kept, int keptCount, int[] elements, int from, int to) {
+        double gain = 0;
+        for (int a = from; a < to; a++) {
+            final int e = elements[a];
+            gain += A.diagonal(e);
+            for (int k = 0; k < keptCount; k++)
+                gain += A.interaction(e, kept[k]);
+            for (int b = a + 1; b < to; b++)
+                gain += A.interaction(e, elements[b]);
+        }
+        return gain;
     }
 
     /**
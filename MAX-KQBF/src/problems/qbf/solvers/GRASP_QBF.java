@@ -3,11 +3,16 @@ package problems.qbf.solvers;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import metaheuristics.grasp.AbstractGRASP;
 import metaheuristics.grasp.ConstructiveHeuristic;
 import problems.Evaluator;
+import problems.qbf.IncrementalQBF;
+import problems.qbf.QBF;
+import problems.qbf.QBFMatrix;
 import problems.qbf.QBF_Inverse;
+import solutions.BinarySolution;
 import solutions.Solution;
 
 
@@ -23,6 +28,40 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 
     public final boolean stImproving;
 
+    /**
+     * whether the local search is driven by don't look bits (see
+     * {@link #dontLookBitsSearch}), instead of scanning the whole
+     * neighborhood after each move
+     */
+    public boolean dontLookBits = false;
+
+    /**
+     * the incremental evaluator bound to the current solution during the
+     * construction and the local search.
+     */
+    protected final IncrementalQBF incremental;
+
+    /**
+     * the elements flipped by a path relinking, the ones left from the start
+     * and the ones done from the end, in the order they were done
+     */
+    private final int[] moves;
+
+    /**
+     * the working memory of {@link #dontLookBitsSearch}: the circular queue
+     * of the active elements, the elements skipped for not fitting, and the
+     * neighbors of an element
+     */
+    private final int[] queue, blocked, neighbors;
+
+    /**
+     * the don't look bits, cleared for the elements in the queue, and the
+     * flags of the elements skipped for not fitting
+     */
+    private final boolean[] looked, isBlocked;
+
+    private int head, count;
+
     /**
      * Constructor for the GRASP_QBF class. An inverse QBF objective function is
      * passed as argument for the superclass constructor.
@@ -39,6 +78,37 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
                      ConstructiveHeuristic.ConstructiveHeuristicType hType, boolean stImproving) throws IOException {
         super(filename, param, iterations, hType);
         this.stImproving = stImproving;
+        this.incremental = new IncrementalQBF((QBF) ObjFunction);
+        this.moves = new int[ObjFunction.getDomainSize()];
+        this.queue = new int[ObjFunction.getDomainSize()];
+        this.blocked = new int[ObjFunction.getDomainSize()];
+        this.neighbors = new int[ObjFunction.getDomainSize()];
+        this.looked = new boolean[ObjFunction.getDomainSize()];
+        this.isBlocked = new boolean[ObjFunction.getDomainSize()];
+    }
+
+    /**
+     * Constructor for the GRASP_QBF class which shares an already read QBF.
+     * Only the QBF coefficients are shared, the evaluation state is kept per
+     * solver (and per thread), so several solvers can run concurrently.
+     *
+     * @param param       A double hyperparameter used by the constructive heuristics.
+     * @param iterations  The number of iterations which the GRASP will be executed.
+     * @param objFunction The (inverse) QBF objective function.
+     * @param hType       The constructive heuristic type to be used in generating new solutions.
+     * @param stImproving If should use the first-improving local search, or the best-improving.
+     */
+    public GRASP_QBF(Double param, Integer iterations, QBF_Inverse objFunction,
+                     ConstructiveHeuristic.ConstructiveHeuristicType hType, boolean stImproving) {
+        super(objFunction, param, iterations, hType);
+        this.stImproving = stImproving;
+        this.incremental = new IncrementalQBF(objFunction);
+        this.moves = new int[objFunction.getDomainSize()];
+        this.queue = new int[objFunction.getDomainSize()];
+        this.blocked = new int[objFunction.getDomainSize()];
+        this.neighbors = new int[objFunction.getDomainSize()];
+        this.looked = new boolean[objFunction.getDomainSize()];
+        this.isBlocked = new boolean[objFunction.getDomainSize()];
     }
 
     /*
@@ -48,7 +118,7 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
      */
     @Override
     public ArrayList<Integer> makeCL() {
-        ArrayList<Integer> _CL = new ArrayList<>();
+        BinarySolution _CL = new BinarySolution(ObjFunction.getDomainSize());
         for (int i = 0; i < ObjFunction.getDomainSize(); i++)
             _CL.add(i);
         return _CL;
@@ -64,14 +134,15 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
         return new ArrayList<>();
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see grasp.abstracts.AbstractGRASP#updateCL()
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All the elements are viable for a QBF, hence the CL is kept as is. It
+     * is shuffled by the local search instead (the constructive heuristics
+     * draw their candidates randomly by themselves).
      */
     @Override
     public void updateCL() {
-        Collections.shuffle(CL);
     }
 
     /**
@@ -82,12 +153,125 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
      * to zero has also zero cost.
      */
     @Override
-    public Solution<Integer> createEmptySol() {
-        Solution<Integer> sol = new Solution<>();
+    public BinarySolution createEmptySol() {
+        BinarySolution sol = new BinarySolution(ObjFunction.getDomainSize());
         sol.cost = 0.0;
         return sol;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The insertion costs of all the candidates are kept by the incremental
+     * evaluator, which each insertion updates in O(n), hence a construction
+     * costs O(n^2) overall.
+     */
+    @Override
+    protected void startConstruction() {
+        incremental.clear();
+    }
+
+    @Override
+    protected void evaluateInsertionCosts(List<Integer> candidates, double[] deltas) {
+        for (int k = 0; k < candidates.size(); k++)
+            deltas[k] = incremental.insertionCost(candidates.get(k));
+    }
+
+    @Override
+    protected double evaluateInsertionCost(Integer candidate) {
+        return incremental.insertionCost(candidate);
+    }
+
+    @Override
+    protected void insertCandidate(Integer candidate, double deltaCost) {
+        ObjFunction.applyInsertion(candidate, deltaCost, sol);
+        incremental.insert(candidate);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The moves are the insertions and removals of the elements in only one
+     * of the solutions, evaluated in O(1) each by the incremental evaluator,
+     * which each move updates in O(n). Insertions which do not fit (see
+     * {@link #fits}) are skipped.
+     */
+    @Override
+    protected boolean pathRelinking(Solution<Integer> guide) {
+        incremental.reset(sol);
+        int count = 0;
+        for (Integer elem : sol)
+            if (!guide.contains(elem))
+                moves[count++] = elem;
+        for (Integer elem : guide)
+            if (!incremental.contains(elem))
+                moves[count++] = elem;
+
+        int done = moves.length, bestDone = done;
+        double bestCost = Double.POSITIVE_INFINITY;
+        while (count > 1) { // the last move would reach the guide
+            int bestMove = -1;
+            double minDeltaCost = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < count; k++) {
+                int elem = moves[k];
+                double deltaCost;
+                if (incremental.contains(elem))
+                    deltaCost = incremental.removalCost(elem);
+                else if (fits(elem))
+                    deltaCost = incremental.insertionCost(elem);
+                else
+                    continue;
+                if (deltaCost < minDeltaCost) {
+                    minDeltaCost = deltaCost;
+                    bestMove = k;
+                }
+            }
+            if (bestMove < 0)
+                break;
+            int elem = moves[bestMove];
+            moves[bestMove] = moves[--count];
+            moves[--done] = elem;
+            flip(elem);
+            if (sol.cost < bestCost) {
+                bestCost = sol.cost;
+                bestDone = done;
+            }
+        }
+
+        // Undoes the moves done past the best solution, the last one first:
+        for (int k = done; k < bestDone; k++)
+            flip(moves[k]);
+        return bestDone < moves.length;
+    }
+
+    /**
+     * Inserts an element into the current solution, or removes it if there,
+     * keeping the incremental evaluator and the CL up to date.
+     */
+    private void flip(int elem) {
+        if (incremental.contains(elem)) {
+            ObjFunction.applyRemoval(elem, incremental.removalCost(elem), sol);
+            incremental.remove(elem);
+            CL.add(elem);
+        } else {
+            ObjFunction.applyInsertion(elem, incremental.insertionCost(elem), sol);
+            incremental.insert(elem);
+            CL.remove((Integer) elem);
+        }
+    }
+
+    /**
+     * Tells whether an element fits the current solution, i.e., may be
+     * inserted into it without making it infeasible, which all of them do
+     * for a QBF.
+     *
+     * @param elem the element.
+     * @return true if the element fits.
+     */
+    protected boolean fits(int elem) {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -96,17 +280,26 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
      */
     @Override
     public Solution<Integer> localSearch() {
+        // Exact costs need no tolerance to tell an improvement apart from
+        // rounding noise.
+        final double tolerance = ObjFunction.isExact() ? 0.0 : Double.MIN_VALUE;
+        if (dontLookBits) {
+            dontLookBitsSearch(tolerance);
+            return null;
+        }
         double minDeltaCost;
         Integer bestCandIn = null, bestCandOut = null;
-        Collections.shuffle(sol);
+        Collections.shuffle(sol, rng);
+        incremental.reset(sol);
 
         do {
             minDeltaCost = Double.POSITIVE_INFINITY;
             updateCL();
+            Collections.shuffle(CL, rng);
 
             // Evaluate removals
             for (Integer candOut : sol) {
-                double deltaCost = ObjFunction.evaluateRemovalCost(candOut, sol);
+                double deltaCost = incremental.removalCost(candOut);
                 if (deltaCost < minDeltaCost) {
                     minDeltaCost = deltaCost;
                     bestCandIn = null;
@@ -118,7 +311,7 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
             outerLoop:
             for (Integer candIn : CL)
                 for (Integer candOut : sol) {
-                    double deltaCost = ObjFunction.evaluateExchangeCost(candIn, candOut, sol);
+                    double deltaCost = incremental.exchangeCost(candIn, candOut);
                     if (deltaCost < minDeltaCost) {
                         minDeltaCost = deltaCost;
                         bestCandIn = candIn;
@@ -128,7 +321,7 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
                 }
             // Evaluate insertions
             for (Integer candIn : CL) {
-                double deltaCost = ObjFunction.evaluateInsertionCost(candIn, sol);
+                double deltaCost = incremental.insertionCost(candIn);
                 if (deltaCost < minDeltaCost) {
                     minDeltaCost = deltaCost;
                     bestCandIn = candIn;
@@ -137,22 +330,136 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
                 }
             }
             // Implement the best move, if it reduces the solution cost.
-            if (minDeltaCost < -Double.MIN_VALUE) {
+            if (minDeltaCost < -tolerance) {
                 if (bestCandOut != null) {
-                    sol.remove(bestCandOut);
+                    ObjFunction.applyRemoval(bestCandOut, incremental.removalCost(bestCandOut), sol);
                     CL.add(bestCandOut);
+                    incremental.remove(bestCandOut);
                 }
                 if (bestCandIn != null) {
-                    sol.add(bestCandIn);
+                    ObjFunction.applyInsertion(bestCandIn, incremental.insertionCost(bestCandIn), sol);
                     CL.remove(bestCandIn);
+                    incremental.insert(bestCandIn);
                 }
-                ObjFunction.evaluate(sol);
             }
-        } while (minDeltaCost < -Double.MIN_VALUE);
+        } while (minDeltaCost < -tolerance);
 
         return null;
     }
 
+    /**
+     * Local search with don't look bits. Each element of the domain is either
+     * looked, when no improving move involving it was found, or active, in a
+     * queue of the elements whose moves are to be evaluated. The moves of an
+     * element are its insertion or removal, and its exchanges with the
+     * elements interacting with it (see {@link QBFMatrix#neighbors}): since
+     * the insertions considered fit by themselves, an improving exchange of
+     * elements not interacting implies an improving insertion or removal.
+     * <p>
+     * An improving move only changes the costs of the moves of the elements
+     * flipped and of the ones interacting with them, which are the only ones
+     * activated again, along with the elements skipped for not fitting which
+     * fit after the move. Each move thus costs O(d) for elements interacting
+     * with d others, instead of the O(|CL|.|S|) of a scan of the whole
+     * neighborhood, for as long as the queue is not empty.
+     *
+     * @param tolerance the minimum cost reduction of an improving move.
+     */
+    private void dontLookBitsSearch(double tolerance) {
+        QBFMatrix A = incremental.qbf.A;
+        int n = queue.length, blockedCount = 0;
+        head = 0;
+        count = n;
+        incremental.reset(sol);
+        for (int i = 0; i < n; i++) { // activates all the elements, in random order
+            int j = rng.nextInt(i + 1);
+            queue[i] = queue[j];
+            queue[j] = i;
+            looked[i] = false;
+        }
+
+        while (count > 0) {
+            int i = queue[head];
+            head = (head + 1) % n;
+            count--;
+            looked[i] = true;
+
+            // Finds the best move involving the element:
+            boolean in = incremental.contains(i);
+            if (!in && !fits(i)) {
+                if (!isBlocked[i]) {
+                    isBlocked[i] = true;
+                    blocked[blockedCount++] = i;
+                }
+                continue;
+            }
+            int partner = -1, degree = A.neighbors(i, neighbors);
+            double minDeltaCost = in ? incremental.removalCost(i) : incremental.insertionCost(i);
+            for (int k = 0; k < degree; k++) {
+                int j = neighbors[k];
+                double deltaCost;
+                if (in && !incremental.contains(j) && fits(j))
+                    deltaCost = incremental.exchangeCost(j, i);
+                else if (!in && incremental.contains(j))
+                    deltaCost = incremental.exchangeCost(i, j);
+                else
+                    continue;
+                if (deltaCost < minDeltaCost) {
+                    minDeltaCost = deltaCost;
+                    partner = j;
+                }
+            }
+            if (minDeltaCost >= -tolerance)
+                continue;
+
+            // Applies it, removing first so that the insertion fits:
+            if (partner < 0)
+                flip(i);
+            else if (in) {
+                flip(i);
+                flip(partner);
+            } else {
+                flip(partner);
+                flip(i);
+            }
+
+            // Activates the elements whose moves changed:
+            activateNeighborhood(A, i);
+            if (partner >= 0)
+                activateNeighborhood(A, partner);
+            for (int k = blockedCount - 1; k >= 0; k--) {
+                int j = blocked[k];
+                if (incremental.contains(j) || fits(j)) {
+                    isBlocked[j] = false;
+                    blocked[k] = blocked[--blockedCount];
+                    activate(j);
+                }
+            }
+        }
+        for (int k = 0; k < blockedCount; k++)
+            isBlocked[blocked[k]] = false;
+    }
+
+    /**
+     * Activates an element and the ones interacting with it.
+     */
+    private void activateNeighborhood(QBFMatrix A, int elem) {
+        activate(elem);
+        int degree = A.neighbors(elem, neighbors);
+        for (int k = 0; k < degree; k++)
+            activate(neighbors[k]);
+    }
+
+    /**
+     * Clears the don't look bit of an element, queueing it if looked.
+     */
+    private void activate(int elem) {
+        if (looked[elem]) {
+            looked[elem] = false;
+            queue[(head + count++) % queue.length] = elem;
+        }
+    }
+
     @Override
     protected Evaluator<Integer> initEvaluator(String filename) throws IOException {
         return new QBF_Inverse(filename);
@@ -3,10 +3,16 @@ package problems.qbf.solvers;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
 
 import metaheuristics.tabusearch.AbstractTS;
 import problems.Evaluator;
+import problems.qbf.IncrementalQBF;
+import problems.qbf.QBF;
 import problems.qbf.QBF_Inverse;
+import solutions.BinarySolution;
 import solutions.Solution;
 
 /**
@@ -23,6 +29,11 @@ public class TS_QBF extends AbstractTS<Integer> {
 
     protected final int fake = -1;
 
+    /**
+     * the incremental evaluator bound to the incumbent solution.
+     */
+    protected final IncrementalQBF incremental;
+
     /**
      * Constructor for the TS_QBF class. An inverse QBF objective function is
      * passed as argument for the superclass constructor.
@@ -39,6 +50,24 @@ public class TS_QBF extends AbstractTS<Integer> {
     public TS_QBF(int tenure, int iterations, String filename, boolean stImproving) throws IOException {
         super(filename, tenure, iterations);
         this.stImproving = stImproving;
+        this.incremental = new IncrementalQBF((QBF) ObjFunction);
+    }
+
+    /**
+     * Constructor for the TS_QBF class which shares an already read QBF. Only
+     * the QBF coefficients are shared, the evaluation state is kept per solver
+     * (and per thread), so several solvers can run concurrently.
+     *
+     * @param tenure      The Tabu tenure parameter.
+     * @param iterations  The number of iterations which the TS will be executed.
+     * @param objFunction The (inverse) QBF objective function.
+     * @param stImproving If should use the first-improving local search, or the
+     *                    best-improving.
+     */
+    public TS_QBF(int tenure, int iterations, QBF_Inverse objFunction, boolean stImproving) {
+        super(objFunction, tenure, iterations);
+        this.stImproving = stImproving;
+        this.incremental = new IncrementalQBF(objFunction);
     }
 
     @Override
@@ -46,6 +75,104 @@ public class TS_QBF extends AbstractTS<Integer> {
         return new QBF_Inverse(filename);
     }
 
+    /**
+     * Tabu list which keeps how many times each element is in it, so that
+     * membership tests take O(1) instead of a scan of the whole list. The fake
+     * element, used to fill the list, is not counted.
+     */
+    protected static class TabuList extends ArrayDeque<Integer> {
+
+        private final int[] count;
+
+        public TabuList(int capacity, int domainSize) {
+            super(capacity);
+            this.count = new int[domainSize];
+        }
+
+        private void count(Integer elem, int increment) {
+            if (elem != null && elem >= 0)
+                count[elem] += increment;
+        }
+
+        @Override
+        public void addFirst(Integer elem) {
+            super.addFirst(elem);
+            count(elem, 1);
+        }
+
+        @Override
+        public void addLast(Integer elem) {
+            super.addLast(elem);
+            count(elem, 1);
+        }
+
+        @Override
+        public Integer pollFirst() {
+            Integer elem = super.pollFirst();
+            count(elem, -1);
+            return elem;
+        }
+
+        @Override
+        public Integer pollLast() {
+            Integer elem = super.pollLast();
+            count(elem, -1);
+            return elem;
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(Object o) {
+            boolean removed = super.removeFirstOccurrence(o);
+            if (removed)
+                count((Integer) o, -1);
+            return removed;
+        }
+
+        @Override
+        public boolean removeLastOccurrence(Object o) {
+            boolean removed = super.removeLastOccurrence(o);
+            if (removed)
+                count((Integer) o, -1);
+            return removed;
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Integer> filter) {
+            return recount(super.removeIf(filter));
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            return recount(super.removeAll(c));
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            return recount(super.retainAll(c));
+        }
+
+        private boolean recount(boolean modified) {
+            Arrays.fill(count, 0);
+            for (Integer elem : this)
+                count(elem, 1);
+            return modified;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            Arrays.fill(count, 0);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer))
+                return false;
+            int elem = (Integer) o;
+            return elem >= 0 && elem < count.length ? count[elem] > 0 : super.contains(o);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -53,7 +180,7 @@ public class TS_QBF extends AbstractTS<Integer> {
      */
     @Override
     public ArrayList<Integer> makeCL() {
-        ArrayList<Integer> _CL = new ArrayList<>();
+        BinarySolution _CL = new BinarySolution(ObjFunction.getDomainSize());
         for (int i = 0; i < ObjFunction.getDomainSize(); i++)
             _CL.add(i);
         return _CL;
@@ -76,7 +203,7 @@ public class TS_QBF extends AbstractTS<Integer> {
      */
     @Override
     public ArrayDeque<Integer> makeTL() {
-        ArrayDeque<Integer> _TS = new ArrayDeque<>(2 * tenure);
+        ArrayDeque<Integer> _TS = new TabuList(2 * tenure, ObjFunction.getDomainSize());
         for (int i = 0; i < 2 * tenure; i++)
             _TS.add(fake);
         return _TS;
@@ -100,12 +227,24 @@ public class TS_QBF extends AbstractTS<Integer> {
      * to zero has also zero cost.
      */
     @Override
-    public Solution<Integer> createEmptySol() {
-        Solution<Integer> sol = new Solution<>();
+    public BinarySolution createEmptySol() {
+        BinarySolution sol = new BinarySolution(ObjFunction.getDomainSize());
         sol.cost = 0.0;
         return sol;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The incremental evaluator is bound to the constructed solution, which
+     * becomes the incumbent of the search.
+     */
+    @Override
+    public void constructiveHeuristic() {
+        super.constructiveHeuristic();
+        incremental.reset(sol);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -124,7 +263,7 @@ public class TS_QBF extends AbstractTS<Integer> {
 
         // Evaluate removals
         for (int candOut : sol) {
-            double deltaCost = ObjFunction.evaluateRemovalCost(candOut, sol);
+            double deltaCost = incremental.removalCost(candOut);
             if (!TL.contains(candOut) || sol.cost + deltaCost < bestSol.cost)
                 if (deltaCost < minDeltaCost) {
                     minDeltaCost = deltaCost;
@@ -137,7 +276,7 @@ public class TS_QBF extends AbstractTS<Integer> {
         outerLoop:
         for (int candIn : Neighborhood) {
             for (int candOut : sol) {
-                double deltaCost = ObjFunction.evaluateExchangeCost(candIn, candOut, sol);
+                double deltaCost = incremental.exchangeCost(candIn, candOut);
                 if (!(TL.contains(candIn) || TL.contains(candOut)) || sol.cost + deltaCost < bestSol.cost)
                     if (deltaCost < minDeltaCost) {
                         minDeltaCost = deltaCost;
@@ -150,7 +289,7 @@ public class TS_QBF extends AbstractTS<Integer> {
         }
         // Evaluate insertions
         for (int candIn : Neighborhood) {
-            double deltaCost = ObjFunction.evaluateInsertionCost(candIn, sol);
+            double deltaCost = incremental.insertionCost(candIn);
             if (!TL.contains(candIn) || sol.cost + deltaCost < bestSol.cost)
                 if (deltaCost < minDeltaCost) {
                     minDeltaCost = deltaCost;
@@ -164,19 +303,20 @@ public class TS_QBF extends AbstractTS<Integer> {
         // Implement the best non-tabu move or an aspired one:
         TL.poll();
         if (bestCandOut != null) {
-            sol.remove(bestCandOut);
+            ObjFunction.applyRemoval(bestCandOut, incremental.removalCost(bestCandOut), sol);
             CL.add(bestCandOut);
+            incremental.remove(bestCandOut);
             TL.add(bestCandOut);
         } else
             TL.add(fake);
         TL.poll();
         if (bestCandIn != null) {
-            sol.add(bestCandIn);
+            ObjFunction.applyInsertion(bestCandIn, incremental.insertionCost(bestCandIn), sol);
             CL.remove(bestCandIn);
+            incremental.insert(bestCandIn);
             TL.add(bestCandIn);
         } else
             TL.add(fake);
-        ObjFunction.evaluate(sol);
     }
 
     /**
@@ -0,0 +1,292 @@
+package solutions;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Solution of a binary problem, i.e., a subset of the elements 0, ..., n - 1
+ * of a domain. Besides the list of its elements, it keeps a bitset of them
+ * and the position of each one in the list, so that membership tests,
+ * insertions and removals take O(1). Removals move the last element of the
+ * list to the position of the removed one, hence the list is not kept in
+ * insertion order. The elements are boxed once, by a cache shared among all
+ * the binary solutions, so that no operation allocates.
+ * <p>
+ * Besides solutions, it serves as an indexed set of elements of the domain,
+ * e.g., for the candidate lists of the solvers.
+ */
+public class BinarySolution extends Solution<Integer> {
+
+    private static Integer[] boxes = new Integer[0];
+
+    /**
+     * Dimension of the domain.
+     */
+    public final int domainSize;
+
+    /**
+     * The bitset of the elements in the solution.
+     */
+    protected final long[] bits;
+
+    /**
+     * The position of each element of the domain in the list, or -1 if it
+     * does not belong to the solution.
+     */
+    protected final int[] position;
+
+    /**
+     * The boxed elements of the domain.
+     */
+    protected final Integer[] box;
+
+    /**
+     * Creates an empty solution.
+     *
+     * @param domainSize Dimension of the domain.
+     */
+    public BinarySolution(int domainSize) {
+        super();
+        this.domainSize = domainSize;
+        this.bits = new long[(domainSize + 63) >>> 6];
+        this.position = new int[domainSize];
+        this.box = boxes(domainSize);
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Creates a copy of a solution.
+     *
+     * @param sol the solution being copied.
+     */
+    public BinarySolution(BinarySolution sol) {
+        super(sol);
+        this.domainSize = sol.domainSize;
+        this.bits = sol.bits.clone();
+        this.position = sol.position.clone();
+        this.box = sol.box;
+    }
+
+    /**
+     * Gives the boxed elements of a domain, shared by all the solutions.
+     */
+    private static synchronized Integer[] boxes(int domainSize) {
+        if (boxes.length < domainSize) {
+            Integer[] grown = Arrays.copyOf(boxes, domainSize);
+            for (int i = boxes.length; i < domainSize; i++)
+                grown[i] = i;
+            boxes = grown;
+        }
+        return boxes;
+    }
+
+    /**
+     * Tells whether an element belongs to the solution.
+     *
+     * @param elem the element of the domain.
+     * @return true if the element belongs to the solution.
+     */
+    public boolean containsElement(int elem) {
+        return (bits[elem >>> 6] & (1L << elem)) != 0;
+    }
+
+    /**
+     * Inserts an element into the solution, if it is not there yet.
+     *
+     * @param elem the element of the domain.
+     * @return true if the element was inserted.
+     */
+    public boolean addElement(int elem) {
+        if (containsElement(elem))
+            return false;
+        bits[elem >>> 6] |= 1L << elem;
+        position[elem] = size();
+        super.add(box[elem]);
+        return true;
+    }
+
+    /**
+     * Removes an element from the solution, if it is there.
+     *
+     * @param elem the element of the domain.
+     * @return true if the element was removed.
+     */
+    public boolean removeElement(int elem) {
+        if (!containsElement(elem))
+            return false;
+        removeAt(position[elem]);
+        return true;
+    }
+
+    /**
+     * Writes the elements of the solution in increasing order, as given by
+     * its bitset.
+     *
+     * @param into the array receiving the elements, with room for all of
+     *             them.
+     * @return the number of elements written.
+     */
+    public int sortedElements(int[] into) {
+        int count = 0;
+        for (int w = 0; w < bits.length; w++)
+            for (long word = bits[w]; word != 0; word &= word - 1)
+                into[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        return count;
+    }
+
+    /**
+     * Removes the element at a position of the list, replacing it by the
+     * last one.
+     */
+    private Integer removeAt(int index) {
+        int last = size() - 1;
+        Integer elem = super.get(index), moved = super.remove(last);
+        if (index < last) {
+            super.set(index, moved);
+            position[moved] = index;
+        }
+        bits[elem >>> 6] &= ~(1L << elem);
+        position[elem] = -1;
+        return elem;
+    }
+
+    /**
+     * Rebuilds the bitset and the positions from the list, after operations
+     * that rearrange it as a whole.
+     */
+    private void reindex() {
+        Arrays.fill(bits, 0L);
+        Arrays.fill(position, -1);
+        for (int k = 0; k < size(); k++) {
+            int elem = super.get(k);
+            if (containsElement(elem)) // drops duplicates
+                super.remove(k--);
+            else {
+                bits[elem >>> 6] |= 1L << elem;
+                position[elem] = k;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsElement((Integer) o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return contains(o) ? position[(Integer) o] : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean add(Integer elem) {
+        return addElement(elem);
+    }
+
+    @Override
+    public void add(int index, Integer elem) {
+        if (containsElement(elem))
+            return;
+        super.add(index, box[elem]);
+        reindex();
+    }
+
+    @Override
+    public Integer set(int index, Integer elem) {
+        Integer old = super.set(index, box[elem]);
+        if (old.intValue() != elem && position[old] == index) {
+            bits[old >>> 6] &= ~(1L << old);
+            position[old] = -1;
+        }
+        bits[elem >>> 6] |= 1L << elem;
+        position[elem] = index;
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && removeElement((Integer) o);
+    }
+
+    @Override
+    public Integer remove(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return removeAt(index);
+    }
+
+    @Override
+    public void clear() {
+        for (int k = 0; k < size(); k++)
+            position[super.get(k)] = -1;
+        Arrays.fill(bits, 0L);
+        super.clear();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> c) {
+        boolean modified = false;
+        for (Integer elem : c)
+            modified |= addElement(elem);
+        return modified;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Integer> c) {
+        boolean modified = super.addAll(index, c);
+        reindex();
+        return modified;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = super.removeAll(c);
+        reindex();
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean modified = super.retainAll(c);
+        reindex();
+        return modified;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Integer> filter) {
+        boolean modified = super.removeIf(filter);
+        reindex();
+        return modified;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Integer> operator) {
+        super.replaceAll(operator);
+        reindex();
+    }
+
+    @Override
+    public void sort(Comparator<? super Integer> c) {
+        super.sort(c);
+        reindex();
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        super.removeRange(fromIndex, toIndex);
+        reindex();
+    }
+
+    @Override
+    public BinarySolution clone() {
+        return new BinarySolution(this);
+    }
+}
@@ -1,14 +1,14 @@
 package solutions;
 
-public class KSolution<E> extends Solution<E> {
+public class KSolution extends BinarySolution {
 
-    public Double weigth;
+    public double weigth;
 
-    public KSolution(Solution<E> sol) {
+    public KSolution(BinarySolution sol) {
         super(sol);
     }
 
-    public KSolution(KSolution<E> sol) {
+    public KSolution(KSolution sol) {
         super(sol);
         weigth = sol.weigth;
     }
@@ -20,7 +20,7 @@ public class KSolution<E> extends Solution<E> {
     }
 
     @Override
-    public KSolution<E> clone() {
-        return new KSolution<>(this);
+    public KSolution clone() {
+        return new KSolution(this);
     }
 }